@@ -0,0 +1,59 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Numbers the messages that existed before per-chat sequences, in ID order within each chat,
+ * and moves each chat's counter past them. A Java migration because the window-function UPDATE
+ * MySQL would need is not portable to the H2 schema used by the tests.
+ */
+public class V5__Backfill_message_sequence extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+
+        List<Long> chatIds = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement("SELECT id FROM chats ORDER BY id");
+             ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                chatIds.add(rs.getLong(1));
+            }
+        }
+
+        try (PreparedStatement messages = connection.prepareStatement(
+                     "SELECT id FROM messages WHERE chat_id = ? ORDER BY id");
+             PreparedStatement number = connection.prepareStatement("UPDATE messages SET seq = ? WHERE id = ?");
+             PreparedStatement counter = connection.prepareStatement("UPDATE chats SET last_seq = ? WHERE id = ?")) {
+            for (Long chatId : chatIds) {
+                long seq = 0;
+                messages.setLong(1, chatId);
+                try (ResultSet rs = messages.executeQuery()) {
+                    while (rs.next()) {
+                        number.setLong(1, ++seq);
+                        number.setLong(2, rs.getLong(1));
+                        number.addBatch();
+                        if (seq % BATCH_SIZE == 0) {
+                            number.executeBatch();
+                        }
+                    }
+                }
+                number.executeBatch();
+
+                counter.setLong(1, seq);
+                counter.setLong(2, chatId);
+                counter.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.whatsdownbackend.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Gives {@code @Async} work a bounded pool. Boot only creates its applicationTaskExecutor when no
+ * other Executor exists, and the STOMP channel executors always do, so without this {@code @Async}
+ * would fall back to a SimpleAsyncTaskExecutor starting a thread per task.
+ * <p>
+ * As in SchedulingConfig, the pool itself is not a bean: Boot's WebSocket support hands the only
+ * AsyncTaskExecutor bean in the context to the STOMP channels. {@code @Async} methods name the plain
+ * Executor beans below instead.
+ */
+@Configuration
+public class AsyncConfig implements DisposableBean {
+
+    public static final String ATTACHMENT_VARIANT_EXECUTOR = "attachmentVariantExecutor";
+
+    private final ThreadPoolTaskExecutor attachmentVariantPool;
+
+    public AsyncConfig(ThreadPoolTaskExecutorBuilder builder) {
+        // Built from spring.task.execution.*
+        this.attachmentVariantPool = builder.build();
+        // With the queue full, the committing request thread generates the variants itself rather
+        // than piling more decoded images onto the heap
+        this.attachmentVariantPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.attachmentVariantPool.initialize();
+    }
+
+    @Bean(ATTACHMENT_VARIANT_EXECUTOR)
+    public Executor attachmentVariantExecutor() {
+        return attachmentVariantPool::execute;
+    }
+
+    @Override
+    public void destroy() {
+        attachmentVariantPool.shutdown();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.whatsdownbackend.config;
+
+import org.example.whatsdownbackend.util.SnowflakeIdGenerator;
+import org.example.whatsdownbackend.util.SnowflakeIdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Creates the node's {@link SnowflakeIdGenerator}. Each node of a deployment needs its own
+ * {@code app.ids.node-id}; two nodes sharing one would issue colliding IDs.
+ */
+@Configuration
+public class IdGeneratorConfig implements HibernatePropertiesCustomizer {
+
+    private final SnowflakeIdGenerator idGenerator;
+
+    public IdGeneratorConfig(@Value("${app.ids.node-id:0}") int nodeId) {
+        this.idGenerator = new SnowflakeIdGenerator(nodeId);
+    }
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Called while the persistence unit is built, so the generator is in place before the first insert.
+     */
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        SnowflakeIdentifierGenerator.setIdGenerator(idGenerator);
+    }
+}
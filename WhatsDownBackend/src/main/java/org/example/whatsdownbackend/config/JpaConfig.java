@@ -0,0 +1,13 @@
+package org.example.whatsdownbackend.config;
+
+import org.example.whatsdownbackend.repository.NaturalIdJpaRepository;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+@Configuration
+@EnableJpaRepositories(
+        basePackages = "org.example.whatsdownbackend.repository",
+        repositoryBaseClass = NaturalIdJpaRepository.class
+)
+public class JpaConfig {
+}
@@ -0,0 +1,39 @@
+package org.example.whatsdownbackend.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Gives {@code @Scheduled} jobs their own scheduler. Boot only creates one when no other
+ * TaskScheduler exists, and the STOMP broker's heartbeat scheduler always does, so without this
+ * every job would run on, and compete with, the broker's heartbeat scheduler.
+ * <p>
+ * The scheduler is deliberately not a bean: Boot's WebSocket support hands the only
+ * AsyncTaskExecutor bean in the context to the STOMP channels, replacing the executors
+ * WebSocketConfig registers.
+ */
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskScheduler taskScheduler;
+
+    public SchedulingConfig(ThreadPoolTaskSchedulerBuilder builder) {
+        // Built from spring.task.scheduling.*
+        this.taskScheduler = builder.build();
+        this.taskScheduler.initialize();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(taskScheduler);
+    }
+
+    @Override
+    public void destroy() {
+        taskScheduler.shutdown();
+    }
+}
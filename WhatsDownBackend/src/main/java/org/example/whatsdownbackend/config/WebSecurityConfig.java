@@ -73,7 +73,9 @@ public class WebSecurityConfig {
                                 "/swagger-ui/**",
                                 "/oauth2/**",
                                 "/login/**",
-                                "/ws/**" // Allow access to WebSocket endpoint
+                                "/ws/**", // Allow access to WebSocket endpoint
+                                "/ws-native/**", // Same endpoint without SockJS
+                                "/actuator/health"
                         ).permitAll()
                         // All other endpoints require authentication
                         .anyRequest().authenticated())
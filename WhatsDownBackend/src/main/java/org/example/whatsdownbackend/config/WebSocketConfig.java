@@ -1,12 +1,27 @@
 package org.example.whatsdownbackend.config;
 
 import org.example.whatsdownbackend.security.StompChannelInterceptor;
+import org.example.whatsdownbackend.websocket.BinaryFrameDecoratorFactory;
+import org.example.whatsdownbackend.websocket.CborMessageConverter;
+import org.example.whatsdownbackend.websocket.DatabaseBrokerBus;
+import org.example.whatsdownbackend.websocket.InboundRateLimitInterceptor;
+import org.example.whatsdownbackend.websocket.OutboundFlowControl;
+import org.example.whatsdownbackend.websocket.PayloadCodecInterceptor;
+import org.example.whatsdownbackend.websocket.PresenceChannelInterceptor;
+import org.example.whatsdownbackend.websocket.WebSocketChannelExecutors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.*;
 
+import java.util.List;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
@@ -14,10 +29,110 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private StompChannelInterceptor stompChannelInterceptor;
 
+    @Autowired
+    private InboundRateLimitInterceptor inboundRateLimitInterceptor;
+
+    @Autowired
+    private PresenceChannelInterceptor presenceChannelInterceptor;
+
+    @Autowired
+    private PayloadCodecInterceptor payloadCodecInterceptor;
+
+    @Autowired
+    private CborMessageConverter cborMessageConverter;
+
+    @Autowired
+    private BinaryFrameDecoratorFactory binaryFrameDecoratorFactory;
+
+    @Autowired
+    private OutboundFlowControl outboundFlowControl;
+
+    @Autowired
+    private WebSocketChannelExecutors channelExecutors;
+
+    // Sends and checks heartbeats for the in-JVM broker
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // Only present in the "database" broker mode
+    @Autowired(required = false)
+    private DatabaseBrokerBus databaseBrokerBus;
+
+    // simple: in-JVM broker, single node only
+    // relay: external STOMP broker (RabbitMQ, ActiveMQ, Artemis) shared by all nodes
+    // database: in-JVM broker on each node, bridged through the broker_events table
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    // Heartbeats keep presence alive; a session that stops sending them is dropped
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${app.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    // Backstop for sessions that stop reading: exceeding either limit closes the session. Kept above
+    // what OutboundFlowControl lets queue, so slow readers are conflated and resynced long before this
+    @Value("${app.websocket.transport.send-time-limit-ms:15000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.transport.send-buffer-size-limit:1048576}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // The broker channel is synchronous by default: fan-out runs on the publishing thread
+    @Value("${app.websocket.executor.broker.enabled:false}")
+    private boolean brokerExecutorEnabled;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        switch (brokerMode) {
+            case "simple", "database" -> config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+            case "relay" -> {
+                var relay = config.enableStompBrokerRelay("/topic", "/queue")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayLogin)
+                        .setClientPasscode(relayPasscode)
+                        .setSystemLogin(relayLogin)
+                        .setSystemPasscode(relayPasscode)
+                        // Share the user registry so /user/** messages reach sessions connected to other nodes
+                        .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                        .setUserRegistryBroadcast("/topic/simp-user-registry");
+                if (!relayVirtualHost.isEmpty()) {
+                    relay.setVirtualHost(relayVirtualHost);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown app.websocket.broker.mode: " + brokerMode);
+        }
         config.setApplicationDestinationPrefixes("/app");
+
+        ChannelRegistration brokerChannel = config.configureBrokerChannel();
+        if (databaseBrokerBus != null) {
+            // Carries /topic/** and /user/** across nodes; each node resolves /user/** against its own sessions
+            brokerChannel.interceptors(databaseBrokerBus);
+        }
+        if (brokerExecutorEnabled) {
+            brokerChannel.executor(channelExecutors.create("broker", defaultPoolSize()));
+        }
     }
 
     @Override
@@ -25,10 +140,45 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // Plain WebSocket: no SockJS framing, binary frames for CBOR sessions, and permessage-deflate
+        // whenever the client offers it (the servlet container installs the extension)
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(binaryFrameDecoratorFactory)
+                .addDecoratorFactory(outboundFlowControl);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Only picked for application/cbor; the JSON defaults are still registered
+        messageConverters.add(cborMessageConverter);
+        return true;
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(stompChannelInterceptor);
+        // Throttled frames are dropped here, on the reading thread, before they can queue on the executor
+        registration.interceptors(stompChannelInterceptor, inboundRateLimitInterceptor,
+                presenceChannelInterceptor, payloadCodecInterceptor);
+        registration.executor(channelExecutors.create("inbound", defaultPoolSize()));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Frames for congested sessions are held or dropped before they are transcoded or queued
+        registration.interceptors(outboundFlowControl, payloadCodecInterceptor);
+        registration.executor(channelExecutors.create("outbound", defaultPoolSize()));
+    }
+
+    // Same default as Spring's own channel executors
+    private static int defaultPoolSize() {
+        return Runtime.getRuntime().availableProcessors() * 2;
     }
 }
@@ -1,10 +1,15 @@
 package org.example.whatsdownbackend.controller;
 
+import org.example.whatsdownbackend.dto.AttachmentDownload;
 import org.example.whatsdownbackend.dto.AttachmentDto;
+import org.example.whatsdownbackend.dto.CreateUploadRequest;
 import org.example.whatsdownbackend.dto.MessageResponse;
+import org.example.whatsdownbackend.dto.UploadSessionDto;
 import org.example.whatsdownbackend.entity.User;
 import org.example.whatsdownbackend.service.AttachmentService;
+import org.example.whatsdownbackend.service.ChunkedUploadService;
 import org.example.whatsdownbackend.service.UserService;
+import org.example.whatsdownbackend.util.AttachmentVariant;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.*;
@@ -15,6 +20,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 @RestController
 @RequestMapping("/api/attachments")
 public class AttachmentController {
@@ -22,6 +30,9 @@ public class AttachmentController {
     @Autowired
     private AttachmentService attachmentService;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
     @Autowired
     private UserService userService;
 
@@ -45,29 +56,120 @@ public class AttachmentController {
     }
 
     /**
-     * Downloads an attachment by its ID.
+     * Streams an attachment by its ID. Image attachments can be fetched as a small JPEG
+     * with variant=thumbnail or variant=preview.
+     * Spring MVC answers Range requests with 206 Partial Content and If-None-Match with 304 Not Modified,
+     * and sets Content-Length and Accept-Ranges from the resource.
      *
      * @param attachmentId The ID of the attachment.
+     * @param variant      thumbnail, preview, or omitted for the original file.
      * @param userDetails  The authenticated user.
-     * @return The attachment file as a byte array.
+     * @return The attachment file, streamed from disk.
      */
     @GetMapping("/{attachmentId}")
     //@PreAuthorize("hasAuthority('DOWNLOAD_ATTACHMENT')")
     public ResponseEntity<Resource> downloadAttachment(
             @PathVariable Long attachmentId,
+            @RequestParam(required = false) String variant,
             @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.getCurrentUser(userDetails);
-        byte[] fileData = attachmentService.downloadAttachment(attachmentId, currentUser);
+        AttachmentDownload download = attachmentService.downloadAttachment(attachmentId,
+                AttachmentVariant.fromParameter(variant), currentUser);
 
-        // Fetch Attachment details for file name and content type
-        AttachmentDto attachmentDto = attachmentService.getAttachmentById(attachmentId, currentUser);
-
-        // Create a resource from the file data
-        ByteArrayResource resource = new ByteArrayResource(fileData);
+        MediaType contentType = download.getFileType() != null
+                ? MediaType.parseMediaType(download.getFileType())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(download.getFileName(), StandardCharsets.UTF_8)
+                .build();
 
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(attachmentDto.getFileType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + attachmentDto.getFileName() + "\"")
-                .body(resource);
+                .contentType(contentType)
+                .eTag(download.getETag())
+                .lastModified(download.getLastModified())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(download.getResource());
+    }
+
+    /**
+     * Starts a resumable upload. The file is then sent in chunks and completed separately.
+     *
+     * @param createUploadRequest The message to attach to, and the file's name, type and total size.
+     * @param userDetails         The authenticated user.
+     * @return The new upload session.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionDto> createUpload(
+            @Valid @RequestBody CreateUploadRequest createUploadRequest,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        UploadSessionDto upload = chunkedUploadService.createUpload(createUploadRequest, currentUser);
+        return ResponseEntity.status(HttpStatus.CREATED).body(upload);
+    }
+
+    /**
+     * Retrieves the progress of an upload; receivedBytes is the offset to resume from.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param userDetails The authenticated user.
+     * @return The upload session.
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionDto> getUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        return ResponseEntity.ok(chunkedUploadService.getUpload(uploadId, currentUser));
+    }
+
+    /**
+     * Writes a chunk of an upload. The raw request body is streamed into the file, not buffered.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param offset      The position in the file the chunk starts at.
+     * @param body        The chunk's bytes.
+     * @param userDetails The authenticated user.
+     * @return The upload session after the write.
+     */
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionDto> writeChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            InputStream body,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, offset, body, currentUser));
+    }
+
+    /**
+     * Completes an upload and attaches the file to its message.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param userDetails The authenticated user.
+     * @return The created attachment.
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<AttachmentDto> completeUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        AttachmentDto attachmentDto = chunkedUploadService.completeUpload(uploadId, currentUser);
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachmentDto);
+    }
+
+    /**
+     * Cancels an upload and deletes its partial file.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param userDetails The authenticated user.
+     * @return A confirmation message.
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<MessageResponse> cancelUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        chunkedUploadService.cancelUpload(uploadId, currentUser);
+        return ResponseEntity.ok(new MessageResponse("Upload cancelled."));
     }
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ import org.example.whatsdownbackend.entity.User;
 import org.example.whatsdownbackend.repository.RoleRepository;
 import org.example.whatsdownbackend.repository.UserRepository;
 import org.example.whatsdownbackend.security.JwtUtils;
+import org.example.whatsdownbackend.security.PrincipalCache;
 import org.example.whatsdownbackend.service.RefreshTokenService;
 import org.example.whatsdownbackend.service.UserService;
 import jakarta.validation.Valid;
@@ -47,6 +48,9 @@ public class AuthController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    PrincipalCache principalCache;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@Valid @RequestBody UserRegistrationDto signUpRequest){
         if(userRepository.existsByUsername(signUpRequest.getUsername())){
@@ -125,14 +129,15 @@ public class AuthController {
         User user = userRepository.findByEmail(logOutRequest.getEmail())
                 .orElseThrow(() -> new RuntimeException("Error: User not found."));
 
-        // Revoke the JWT token by adding it to the blacklist
+        // Revoke the JWT token until it expires
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             String jwt = authorizationHeader.substring(7);
             jwtUtils.revokeToken(jwt);
         }
 
-        // Delete the refresh token
+        // Delete the refresh token and forget the cached principal
         refreshTokenService.deleteByUser(user);
+        principalCache.evict(user.getEmail());
         return ResponseEntity.ok(new MessageResponse("Log out successful!"));
     }
 }
@@ -55,18 +55,33 @@ public class ChatController {
     }
 
     /**
-     * Retrieves details of a specific chat.
+     * Retrieves the chat-list summary of the current user: last message, member and unread counts per chat.
      *
-     * @param chatId      The ID of the chat.
      * @param userDetails The authenticated user.
+     * @return The chat summaries, most recently active first.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<List<ChatSummaryDto>> getUserChatSummaries(
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        return ResponseEntity.ok(chatService.getUserChatSummaries(currentUser));
+    }
+
+    /**
+     * Retrieves details of a specific chat.
+     *
+     * @param chatId          The ID of the chat.
+     * @param includeMessages Whether to attach the full message history (off by default; prefer the paged history endpoint).
+     * @param userDetails     The authenticated user.
      * @return The chat details.
      */
     @GetMapping("/{chatId}")
     public ResponseEntity<ChatDto> getChatDetails(
             @PathVariable Long chatId,
+            @RequestParam(defaultValue = "false") boolean includeMessages,
             @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.getCurrentUser(userDetails);
-        ChatDto chatDetails = chatService.getChatDetails(chatId, currentUser);
+        ChatDto chatDetails = chatService.getChatDetails(chatId, includeMessages, currentUser);
         return ResponseEntity.ok(chatDetails);
     }
 
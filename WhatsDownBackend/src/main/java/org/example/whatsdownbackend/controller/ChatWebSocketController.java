@@ -1,26 +1,32 @@
 package org.example.whatsdownbackend.controller;
 
 import org.example.whatsdownbackend.dto.ChatMessage;
+import org.example.whatsdownbackend.dto.ReadAck;
 import org.example.whatsdownbackend.dto.SendMessageRequest;
+import org.example.whatsdownbackend.dto.TypingEvent;
 import org.example.whatsdownbackend.entity.User;
-import org.example.whatsdownbackend.repository.UserRepository;
+import org.example.whatsdownbackend.security.AuthenticatedPrincipal;
+import org.example.whatsdownbackend.service.ChatMembershipService;
 import org.example.whatsdownbackend.service.ChatService;
 import org.example.whatsdownbackend.service.MessageService;
+import org.example.whatsdownbackend.service.MessageWriteBehindService;
+import org.example.whatsdownbackend.service.PresenceService;
 import org.example.whatsdownbackend.service.UserService;
+import org.example.whatsdownbackend.websocket.ChatEventCoalescer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.*;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
-
 @Controller
 public class ChatWebSocketController {
 
@@ -30,11 +36,20 @@ public class ChatWebSocketController {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private MessageWriteBehindService messageWriteBehindService;
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ChatMembershipService chatMembershipService;
+
+    @Autowired
+    private ChatEventCoalescer chatEventCoalescer;
+
+    @Autowired
+    private PresenceService presenceService;
 
     /**
      * Handles incoming messages sent to /app/chat.sendMessage
@@ -45,13 +60,54 @@ public class ChatWebSocketController {
         // Retrieve the current user
         User currentUser = userService.getCurrentUser(userDetails);
 
-        // Create and save the message via MessageService
-        ChatMessage savedMessage = messageService.processIncomingMessage(chatMessage, currentUser);
+        // Create and save the message, or in write-behind mode assign its ID and queue the write
+        ChatMessage savedMessage = messageWriteBehindService.isEnabled()
+                ? messageWriteBehindService.submit(chatMessage, currentUser)
+                : messageService.processIncomingMessage(chatMessage, currentUser);
 
         // Broadcast the message to the chat's subscribers
         messagingTemplate.convertAndSend("/topic/chat/" + savedMessage.getChatId(), savedMessage);
     }
 
+    /**
+     * Handles read acks sent to /app/chat/{chatId}/read.
+     * Acks are coalesced per user and chat; the receipt is broadcast to /topic/chat/{chatId}/read.
+     */
+    @MessageMapping("/chat/{chatId}/read")
+    @PreAuthorize("hasAuthority('MARK_AS_READ')")
+    public void markRead(@DestinationVariable Long chatId,
+                         @Payload ReadAck readAck,
+                         @AuthenticationPrincipal UserDetails userDetails) {
+        if (readAck.getLastReadMessageId() == null) {
+            throw new IllegalArgumentException("lastReadMessageId must be provided.");
+        }
+        User currentUser = userService.getCurrentUser(userDetails);
+        chatMembershipService.checkMembership(chatId, currentUser);
+
+        // Same checks as MessageService.markMessagesAsRead
+        if (!hasPermission(currentUser, "MARK_AS_READ")) {
+            throw new AccessDeniedException("You do not have permission to mark messages as read.");
+        }
+
+        chatEventCoalescer.submitRead(chatId, currentUser.getId(), currentUser.getUsername(),
+                readAck.getLastReadMessageId());
+    }
+
+    /**
+     * Handles typing events sent to /app/chat/{chatId}/typing.
+     * Events are coalesced per user and chat; the state is broadcast to /topic/chat/{chatId}/typing.
+     */
+    @MessageMapping("/chat/{chatId}/typing")
+    public void typing(@DestinationVariable Long chatId,
+                       @Payload TypingEvent typingEvent,
+                       @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        chatMembershipService.checkMembership(chatId, currentUser);
+
+        chatEventCoalescer.submitTyping(chatId, currentUser.getId(), currentUser.getUsername(),
+                !Boolean.FALSE.equals(typingEvent.getTyping()));
+    }
+
     /**
      * Handles user joining a chat
      */
@@ -96,8 +152,11 @@ public class ChatWebSocketController {
      */
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
-        // Optional: Handle user connection events
-        // You can retrieve session attributes if needed
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null && event.getUser() instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof AuthenticatedPrincipal principal) {
+            presenceService.sessionConnected(sessionId, principal.getId(), principal.toUser().getUsername());
+        }
     }
 
     /**
@@ -105,28 +164,23 @@ public class ChatWebSocketController {
      */
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
-        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-
-        String username = (String) headerAccessor.getSessionAttributes().get("username");
-
-        if (username != null) {
-            // Update user status to offline
-            Optional<User> optionalUser = userService.findByUsername(username);
-            if (optionalUser.isPresent()) {
-                User user = optionalUser.get();
-                user.setStatus("offline");
-                userRepository.save(user);
-
-                // Notify other users about the status change
-                ChatMessage leaveMessage = new ChatMessage();
-                leaveMessage.setChatId(null); // Broadcast to all or specific chat
-                leaveMessage.setSenderUsername("System");
-                leaveMessage.setContent(username + " is now offline.");
-                leaveMessage.setTimestamp(LocalDateTime.now());
-                leaveMessage.setMessageType("SYSTEM");
-
-                messagingTemplate.convertAndSend("/topic/public", leaveMessage);
-            }
-        }
+        // Only updates the in-memory registry; the user is announced offline after the grace period
+        presenceService.sessionDisconnected(event.getSessionId());
+    }
+
+    /**
+     * Helper method to check if a user has a specific permission.
+     *
+     * @param user       The user to check.
+     * @param permission The permission to verify.
+     * @return True if the user has the permission, false otherwise.
+     */
+    private boolean hasPermission(User user, String permission) {
+        /*return user.getRoles().stream()
+                .flatMap(role -> role.getPermissions().stream())
+                .anyMatch(p -> p.getName().equals(permission));
+
+         */
+        return true;
     }
 }
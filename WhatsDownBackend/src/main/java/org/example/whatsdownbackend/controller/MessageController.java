@@ -1,8 +1,11 @@
 package org.example.whatsdownbackend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.whatsdownbackend.dto.*;
 import org.example.whatsdownbackend.entity.User;
 import org.example.whatsdownbackend.service.MessageService;
+import org.example.whatsdownbackend.service.MessageSyncService;
+import org.example.whatsdownbackend.service.ReadStateService;
 import org.example.whatsdownbackend.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +18,11 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/messages")
@@ -26,9 +34,18 @@ public class MessageController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ReadStateService readStateService;
+
+    @Autowired
+    private MessageSyncService messageSyncService;
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Sends a new message in a chat.
      *
@@ -75,10 +92,35 @@ public class MessageController {
     }
 
     /**
-     * Marks specified messages as read.
+     * Retrieves a slice of a chat's history using keyset cursors.
+     * Every slice costs the same index range scan, however far back it is.
+     * In write-behind mode an {@code after} cursor can skip a message that commits late;
+     * {@code POST /api/messages/sync} pages by sequence number and does not.
+     *
+     * @param chatId       The ID of the chat.
+     * @param before       Cursor of the slice to load older messages from.
+     * @param after        Cursor of the slice to load newer messages from.
+     * @param limit        The maximum number of messages to return.
+     * @param userDetails  The authenticated user.
+     * @return The messages in chronological order with cursors to the adjacent slices.
+     */
+    @GetMapping("/{chatId}/history")
+    public ResponseEntity<MessageSliceDto> getMessageHistory(
+            @PathVariable Long chatId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        MessageSliceDto history = messageService.getMessageHistory(chatId, before, after, limit, currentUser);
+        return ResponseEntity.ok(history);
+    }
+
+    /**
+     * Marks every message up to the given one as read.
      *
      * @param chatId                  The ID of the chat.
-     * @param markMessagesAsReadRequest The request containing message IDs to mark as read.
+     * @param markMessagesAsReadRequest The request containing the last read message ID.
      * @param userDetails             The authenticated user.
      * @return A success message.
      */
@@ -91,4 +133,50 @@ public class MessageController {
         messageService.markMessagesAsRead(chatId, markMessagesAsReadRequest, currentUser);
         return ResponseEntity.ok(new MessageResponse("Messages marked as read successfully."));
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the read receipts of a chat, derived from each member's read watermark.
+     *
+     * @param chatId      The ID of the chat.
+     * @param messageId   If given, only members who have read this message are returned.
+     * @param userDetails The authenticated user.
+     * @return The read receipts of the chat's members.
+     */
+    @GetMapping("/{chatId}/receipts")
+    public ResponseEntity<List<ReadReceiptDto>> getReadReceipts(
+            @PathVariable Long chatId,
+            @RequestParam(required = false) Long messageId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        return ResponseEntity.ok(readStateService.getReadReceipts(chatId, messageId, currentUser));
+    }
+
+    /**
+     * Returns what a reconnecting client missed, given the last sequence number it has for each chat.
+     * The response is newline-delimited JSON, one line per chat with missed messages, written as each
+     * chat's gap is read; capped chats have {@code hasMore} set and can be synced again from their {@code lastSeq}.
+     *
+     * @param syncRequest The chats to sync with the last sequence number the client has for each.
+     * @param userDetails The authenticated user.
+     * @return A stream of {@link ChatSyncDto} lines.
+     */
+    @PostMapping(value = "/sync", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> syncMessages(
+            @RequestBody SyncRequest syncRequest,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        Stream<ChatSyncDto> gaps = messageSyncService.sync(syncRequest, currentUser);
+
+        StreamingResponseBody body = out -> {
+            try (gaps) {
+                Iterator<ChatSyncDto> chats = gaps.iterator();
+                while (chats.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(chats.next()));
+                    out.write('\n');
+                    out.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
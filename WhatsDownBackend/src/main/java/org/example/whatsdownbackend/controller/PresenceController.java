@@ -0,0 +1,33 @@
+package org.example.whatsdownbackend.controller;
+
+import org.example.whatsdownbackend.dto.PresenceDto;
+import org.example.whatsdownbackend.service.PresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/presence")
+public class PresenceController {
+
+    private static final int MAX_USER_IDS = 500;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    /**
+     * Retrieves whether the given users are online and when they were last seen.
+     *
+     * @param userIds The IDs of the users, at most 500.
+     * @return The presence of each existing user.
+     */
+    @GetMapping
+    public ResponseEntity<List<PresenceDto>> getPresence(@RequestParam List<Long> userIds) {
+        if (userIds.size() > MAX_USER_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_USER_IDS + " user IDs may be requested at once.");
+        }
+        return ResponseEntity.ok(presenceService.getPresence(userIds));
+    }
+}
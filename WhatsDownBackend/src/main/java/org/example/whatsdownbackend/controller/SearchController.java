@@ -0,0 +1,63 @@
+package org.example.whatsdownbackend.controller;
+
+import org.example.whatsdownbackend.dto.MessageResponse;
+import org.example.whatsdownbackend.dto.MessageSearchResultDto;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.service.MessageSearchService;
+import org.example.whatsdownbackend.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private MessageSearchService messageSearchService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Searches the messages of the current user's chats, newest first.
+     *
+     * @param q           The search text.
+     * @param chatId      Restricts the search to a single chat (optional).
+     * @param cursor      Cursor from the previous page to load older hits (optional).
+     * @param limit       The maximum number of hits, at most 50.
+     * @param userDetails The authenticated user.
+     * @return The matching messages with highlighted snippets.
+     */
+    @GetMapping("/messages")
+    public ResponseEntity<MessageSearchResultDto> searchMessages(
+            @RequestParam String q,
+            @RequestParam(required = false) Long chatId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getCurrentUser(userDetails);
+        return ResponseEntity.ok(messageSearchService.search(q, chatId, cursor, limit, currentUser));
+    }
+
+    /**
+     * Rebuilds the message search index from the database in the background. Admins only.
+     *
+     * @param userDetails The authenticated user.
+     * @return Accepted once the rebuild has started.
+     */
+    @PostMapping("/messages/rebuild")
+    public ResponseEntity<MessageResponse> rebuildIndex(@AuthenticationPrincipal UserDetails userDetails) {
+        boolean admin = userDetails.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (!admin) {
+            throw new AccessDeniedException("Only administrators can rebuild the search index.");
+        }
+        messageSearchService.rebuildIndex();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new MessageResponse("Search index rebuild started."));
+    }
+}
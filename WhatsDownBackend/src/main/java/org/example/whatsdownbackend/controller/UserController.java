@@ -1,15 +1,15 @@
 package org.example.whatsdownbackend.controller;
 
+import org.example.whatsdownbackend.dto.UserDirectoryPageDto;
 import org.example.whatsdownbackend.dto.UserProfileDto;
+import org.example.whatsdownbackend.service.UserDirectoryService;
 import org.example.whatsdownbackend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
@@ -17,21 +17,48 @@ import java.util.List;
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int SEARCH_LIMIT = 50;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
     /**
      * Retrieves a list of all users with their basic information.
+     * With a search term only the first users whose username or email starts with it are returned.
      *
+     * @param search Optional username or email prefix.
      * @return List of user profiles.
      */
     @GetMapping
     @PreAuthorize("hasRole('ROLE_USER')")
-    public ResponseEntity<List<UserProfileDto>> getAllUsers() {
+    public ResponseEntity<List<UserProfileDto>> getAllUsers(@RequestParam(required = false) String search) {
+        if (search != null && !search.isBlank()) {
+            return ResponseEntity.ok(userDirectoryService.search(search, null, SEARCH_LIMIT).getUsers());
+        }
         List<UserProfileDto> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Pages through the user directory, optionally filtered by a username or email prefix (typeahead).
+     *
+     * @param q      Optional username or email prefix.
+     * @param cursor Cursor from the previous page (optional).
+     * @param limit  The maximum number of users, at most 100.
+     * @return A page of user profiles.
+     */
+    @GetMapping("/directory")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    public ResponseEntity<UserDirectoryPageDto> getDirectory(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(userDirectoryService.search(q, cursor, limit));
+    }
+
     /**
      * Retrieves the profile of the currently authenticated user.
      *
@@ -0,0 +1,18 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+import org.springframework.core.io.Resource;
+
+/**
+ * An attachment ready to be streamed: the file is opened only when the response body is written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentDownload {
+    private Resource resource;
+    private String fileName;
+    private String fileType;
+    private long lastModified; // Epoch millis
+    private String eTag;
+}
@@ -12,5 +12,5 @@ public class ChatDto {
     private Boolean isGroup;
     private String name; // Optional for one-on-one chats
     private List<Long> userIds;
-    private List<MessageDto> messages; // Optional: Include messages if needed
+    private List<MessageDto> messages; // Only set when the full history is explicitly requested
 }
\ No newline at end of file
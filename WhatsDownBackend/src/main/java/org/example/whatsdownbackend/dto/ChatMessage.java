@@ -10,8 +10,10 @@ import java.time.LocalDateTime;
 public class ChatMessage {
     private Long messageId;
     private Long chatId;
+    private Long seq; // Position within the chat; null in the write-behind broadcast, sent on /topic/chat/{chatId}/seq once written
     private String senderUsername;
     private String content;
     private LocalDateTime timestamp;
     private String messageType; // e.g., CHAT, JOIN, LEAVE, SYSTEM
+    private String clientMessageId; // Optional client-side ID, echoed back in the broadcast and the ack
 }
@@ -0,0 +1,21 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSummaryDto {
+    private Long id;
+    private Boolean isGroup;
+    private String name; // Null for one-on-one chats
+    private Long memberCount;
+    private Long lastMessageId; // Null when the chat has no messages yet
+    private String lastMessagePreview; // Truncated content of the last message
+    private Long lastMessageSenderId;
+    private String lastMessageSender;
+    private LocalDateTime lastMessageTime;
+    private Long unreadCount; // Messages from other members not yet read
+}
@@ -0,0 +1,15 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSyncDto {
+    private Long chatId;
+    private List<MessageDto> messages; // Missed messages in sequence order
+    private Long lastSeq; // Sequence number to sync from next time
+    private Boolean hasMore; // True if the gap was capped; sync again from lastSeq for the rest
+}
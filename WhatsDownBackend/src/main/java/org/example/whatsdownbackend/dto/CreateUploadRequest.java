@@ -0,0 +1,24 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateUploadRequest {
+    @NotNull(message = "Message ID is mandatory")
+    private Long messageId;
+
+    @NotBlank(message = "File name cannot be blank")
+    private String fileName;
+
+    private String fileType;
+
+    @NotNull(message = "Total size is mandatory")
+    @Positive(message = "Total size must be positive")
+    private Long totalSize;
+}
@@ -2,13 +2,12 @@ package org.example.whatsdownbackend.dto;
 
 import lombok.*;
 
-import jakarta.validation.constraints.NotEmpty;
 import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class MarkMessagesAsReadRequest {
-    @NotEmpty(message = "Message IDs list cannot be empty")
-    private List<Long> messageIds;
-}
\ No newline at end of file
+    private Long lastReadMessageId; // Marks everything up to and including this message as read
+    private List<Long> messageIds; // Legacy form: only the highest ID is used
+}
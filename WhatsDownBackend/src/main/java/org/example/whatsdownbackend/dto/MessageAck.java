@@ -0,0 +1,17 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+/**
+ * Sent to the sender on /user/queue/acks once a write-behind message is durable, or has failed to persist.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageAck {
+    private Long messageId;
+    private Long chatId;
+    private Long seq; // Position within the chat; null unless PERSISTED by this write
+    private String clientMessageId;
+    private String status; // PERSISTED or FAILED
+}
@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class MessageDto {
     private Long id;
+    private Long seq; // Position within the chat; reconnecting clients sync from the highest one they have
     private String content;
     private LocalDateTime timestamp;
     private Boolean isRead;
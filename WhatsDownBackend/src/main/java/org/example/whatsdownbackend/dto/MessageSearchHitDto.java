@@ -0,0 +1,17 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchHitDto {
+    private Long messageId;
+    private Long chatId;
+    private Long senderId;
+    private String senderUsername;
+    private LocalDateTime timestamp;
+    private String snippet; // Matching passages with the matched terms wrapped in <mark></mark>
+}
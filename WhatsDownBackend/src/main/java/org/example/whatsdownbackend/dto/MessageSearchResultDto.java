@@ -0,0 +1,14 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResultDto {
+    private List<MessageSearchHitDto> hits; // Newest first
+    private String nextCursor; // Pass as 'cursor' to load older hits; null when there are none
+    private Boolean hasNext;
+}
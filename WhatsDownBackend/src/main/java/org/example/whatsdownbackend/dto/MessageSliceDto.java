@@ -0,0 +1,16 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSliceDto {
+    private List<MessageDto> messages; // Oldest first
+    private String nextCursor; // Pass as 'before' to load older messages; null at the start of the chat
+    private String prevCursor; // Pass as 'after' to load newer messages; null when already at the newest
+    private Boolean hasNext;
+    private Boolean hasPrevious;
+}
@@ -0,0 +1,15 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDto {
+    private Long userId;
+    private String username;
+    private Boolean online;
+    private LocalDateTime lastSeen; // Null if the user has never connected
+}
@@ -0,0 +1,10 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadAck {
+    private Long lastReadMessageId; // Everything up to and including this message has been read
+}
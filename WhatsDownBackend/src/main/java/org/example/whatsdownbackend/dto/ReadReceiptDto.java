@@ -0,0 +1,15 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadReceiptDto {
+    private Long userId;
+    private String username;
+    private Long lastReadMessageId; // Everything up to this message has been read; null if nothing yet
+    private LocalDateTime readAt; // When the watermark last moved forward
+}
@@ -0,0 +1,13 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResyncSignal {
+    private List<Long> chatIds; // Chats whose messages were dropped; sync them through POST /api/messages/sync
+    private Long droppedMessages; // Messages dropped for this session while it was too far behind
+}
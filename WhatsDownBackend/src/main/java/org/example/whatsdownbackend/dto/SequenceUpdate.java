@@ -0,0 +1,18 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Broadcast on /topic/chat/{chatId}/seq once write-behind messages are written, with the sequence
+ * numbers they were given. Their /topic/chat/{chatId} broadcast went out before that, without one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequenceUpdate {
+    private Long chatId;
+    private List<Long> messageIds;
+    private List<Long> seqs; // seqs.get(i) belongs to messageIds.get(i)
+}
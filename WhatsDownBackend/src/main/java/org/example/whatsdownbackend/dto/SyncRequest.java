@@ -0,0 +1,13 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncRequest {
+    private Map<Long, Long> chats; // Chat ID -> highest sequence number the client already has (0 for none)
+    private Integer limit; // Optional cap on the messages returned per chat
+}
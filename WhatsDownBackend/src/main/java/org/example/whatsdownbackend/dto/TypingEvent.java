@@ -0,0 +1,13 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingEvent {
+    private Long chatId;
+    private Long userId;
+    private String user; // Username of the typist; ignored on inbound events
+    private Boolean typing; // False when the user stopped typing; treated as true when omitted
+}
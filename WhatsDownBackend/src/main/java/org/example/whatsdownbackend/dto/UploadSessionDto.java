@@ -0,0 +1,15 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDto {
+    private String uploadId;
+    private Long messageId;
+    private String fileName;
+    private long totalSize;
+    private long receivedBytes; // The offset to send the next chunk from
+    private boolean complete;
+}
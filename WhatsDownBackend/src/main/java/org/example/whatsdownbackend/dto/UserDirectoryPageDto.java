@@ -0,0 +1,14 @@
+package org.example.whatsdownbackend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryPageDto {
+    private List<UserProfileDto> users; // Ordered by the matching username, or email for users matched only by email
+    private String nextCursor; // Pass as 'cursor' to load the next page; null on the last page
+    private Boolean hasNext;
+}
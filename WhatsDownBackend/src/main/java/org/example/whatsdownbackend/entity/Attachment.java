@@ -2,6 +2,7 @@ package org.example.whatsdownbackend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.whatsdownbackend.util.SnowflakeId;
 
 @Entity
 @Table(name = "attachments")
@@ -11,7 +12,7 @@ import lombok.*;
 public class Attachment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     private String fileName;
@@ -20,6 +21,10 @@ public class Attachment {
 
     private String fileUrl; // URL or path where the file is stored
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_hash")
+    private AttachmentBlob blob; // Shared content; null for files stored before deduplication
+
     @OneToOne
     @JoinColumn(name = "message_id")
     private Message message;
@@ -0,0 +1,35 @@
+package org.example.whatsdownbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored file, keyed by the SHA-256 of its content and shared by every attachment with that content.
+ */
+@Entity
+@Table(name = "attachment_blobs", indexes = {
+        @Index(name = "idx_attachment_blobs_orphaned_at", columnList = "orphaned_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // Lowercase hex SHA-256 of the content
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private int refCount; // Attachments referencing this blob, corrected by the garbage collector
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime orphanedAt; // When the reference count was last seen dropping to zero
+}
@@ -0,0 +1,43 @@
+package org.example.whatsdownbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A broker message published on one node, stored so the other nodes can deliver it
+ * to their own subscribers. Rows are short-lived and purged after a retention period.
+ */
+@Entity
+@Table(name = "broker_events", indexes = {
+        @Index(name = "idx_broker_events_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BrokerEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String origin; // Node ID of the publisher
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(length = 100)
+    private String contentType;
+
+    @Column(length = 2000)
+    private String nativeHeaders; // JSON map of the STOMP native headers
+
+    @Lob
+    @Column(nullable = false, length = 16777215)
+    private byte[] payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -26,6 +26,10 @@ public class Chat {
 
     private String name;
 
+    // Sequence number of the chat's newest message; advanced only by atomic UPDATEs, never through the entity
+    @Column(name = "last_seq", insertable = false, updatable = false)
+    private long lastSeq;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "chat_users",
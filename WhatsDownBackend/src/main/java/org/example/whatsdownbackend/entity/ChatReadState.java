@@ -0,0 +1,27 @@
+package org.example.whatsdownbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A member's read watermark in a chat: every message with an ID up to
+ * {@code lastReadMessageId} counts as read by that member.
+ */
+@Entity
+@Table(name = "chat_read_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatReadState {
+
+    @EmbeddedId
+    private ChatUserId id;
+
+    @Column(nullable = false)
+    private Long lastReadMessageId;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt; // When the watermark last moved forward
+}
@@ -6,7 +6,9 @@ import lombok.*;
 import java.io.Serializable;
 
 @Entity
-@Table(name = "chat_users")
+@Table(name = "chat_users", indexes = {
+        @Index(name = "idx_chat_users_user_id_chat_id", columnList = "user_id, chat_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -2,9 +2,15 @@ package org.example.whatsdownbackend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Table(name = "group_roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "group-roles")
+@NaturalIdCache(region = "group-roles-natural-id")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,6 +20,7 @@ public class GroupRole {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String name; // e.g., GROUP_OWNER, GROUP_ADMIN, GROUP_MEMBER
 }
@@ -2,22 +2,35 @@ package org.example.whatsdownbackend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.whatsdownbackend.util.SnowflakeId;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_chat_id_id", columnList = "chat_id, id"),
+        @Index(name = "idx_messages_chat_id_timestamp", columnList = "chat_id, timestamp"),
+        @Index(name = "uk_messages_chat_id_seq", columnList = "chat_id, seq", unique = true),
+        @Index(name = "idx_messages_created_at_id", columnList = "created_at, id")
+})
 @Getter
 @Setter
 public class Message {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
+    private Long seq; // Position within the chat, taken from chats.last_seq in the same transaction as the insert
+
     private String content;
 
     private LocalDateTime timestamp;
 
+    // Set by the database on insert; the search index polls by it
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
     @Getter(AccessLevel.NONE)
     @Setter(AccessLevel.NONE)
     private boolean isRead;
@@ -2,9 +2,15 @@ package org.example.whatsdownbackend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Table(name = "permissions")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "permissions")
+@NaturalIdCache(region = "permissions-natural-id")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,6 +20,7 @@ public class Permission {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String name; // e.g., CREATE_POST, DELETE_COMMENT
 }
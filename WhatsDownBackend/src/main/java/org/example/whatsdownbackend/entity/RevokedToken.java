@@ -0,0 +1,23 @@
+package org.example.whatsdownbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @Column(length = 64)
+    private String tokenId; // jti claim, or the token's digest when it has none
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -2,11 +2,21 @@ package org.example.whatsdownbackend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.whatsdownbackend.security.PrincipalCacheInvalidator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.util.Set;
 import java.util.HashSet;
 
 @Entity
 @Table(name = "roles")
+@EntityListeners(PrincipalCacheInvalidator.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
+@NaturalIdCache(region = "roles-natural-id")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,10 +26,14 @@ public class Role {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String name; // e.g., ROLE_USER, ROLE_ADMIN
 
+    // Resolved through the cache region instead of a join, so loading a role runs no SQL once warm
     @ManyToMany(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "role-permissions")
     @JoinTable(
             name = "role_permissions",
             joinColumns = @JoinColumn(name = "role_id"),
@@ -2,7 +2,13 @@ package org.example.whatsdownbackend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.whatsdownbackend.security.PrincipalCacheInvalidator;
+import org.example.whatsdownbackend.util.UserDirectoryListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -10,7 +16,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_updated_at", columnList = "updated_at")
+})
+@EntityListeners({PrincipalCacheInvalidator.class, UserDirectoryListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,6 +42,8 @@ public class User {
 
     private String status; // e.g., online, offline, busy
 
+    private LocalDateTime lastSeen; // Written in batches by the presence service, not on every connect
+
     private String provider; // e.g., GOOGLE, FACEBOOK
 
     private String providerId; // ID from the OAuth2 provider
@@ -43,7 +54,13 @@ public class User {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    // Email as last read from or written to the database, so a change can evict the old cache key
+    private transient String persistedEmail;
+
+    // Role IDs come from the collection cache and the roles themselves from the roles region
     @ManyToMany(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SELECT)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -0,0 +1,15 @@
+package org.example.whatsdownbackend.event;
+
+import lombok.*;
+
+/**
+ * Published when an attachment has been stored. Listeners interested only in committed
+ * attachments should use {@code @TransactionalEventListener}.
+ */
+@Getter
+@AllArgsConstructor
+public class AttachmentStoredEvent {
+    private final Long attachmentId;
+    private final String fileUrl;
+    private final String fileType;
+}
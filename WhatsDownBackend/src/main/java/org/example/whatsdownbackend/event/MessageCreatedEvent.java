@@ -0,0 +1,21 @@
+package org.example.whatsdownbackend.event;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a chat message has been written. Listeners interested only in committed
+ * messages should use {@code @TransactionalEventListener}; write-behind inserts publish it
+ * outside of any transaction.
+ */
+@Getter
+@AllArgsConstructor
+public class MessageCreatedEvent {
+    private final Long messageId;
+    private final Long chatId;
+    private final Long senderId;
+    private final String senderUsername;
+    private final String content;
+    private final LocalDateTime timestamp;
+}
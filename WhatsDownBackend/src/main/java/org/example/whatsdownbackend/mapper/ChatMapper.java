@@ -17,9 +17,19 @@ public interface ChatMapper {
     @Mapping(target = "isGroup", expression = "java(chat.getIsGroup())")
     @Mapping(target = "name", source = "chat.name")
     @Mapping(target = "userIds", expression = "java(mapUserIds(chat.getUsers()))")
-    @Mapping(target = "messages", source = "chat.messages")
+    @Mapping(target = "messages", ignore = true)
     ChatDto toDto(Chat chat);
 
+    /**
+     * Maps a chat together with its full message history. Only for callers that explicitly asked for it.
+     */
+    @Mapping(target = "id", source = "chat.id")
+    @Mapping(target = "isGroup", expression = "java(chat.getIsGroup())")
+    @Mapping(target = "name", source = "chat.name")
+    @Mapping(target = "userIds", expression = "java(mapUserIds(chat.getUsers()))")
+    @Mapping(target = "messages", source = "chat.messages")
+    ChatDto toDtoWithMessages(Chat chat);
+
     default List<Long> mapUserIds(Set<User> users) {
         return users.stream()
                 .map(User::getId)
@@ -0,0 +1,76 @@
+package org.example.whatsdownbackend.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.whatsdownbackend.entity.AttachmentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+
+    /**
+     * Adds a reference to an existing blob and clears its orphan mark.
+     *
+     * @param hash The blob's content hash.
+     * @return 1 if the blob exists, 0 otherwise.
+     */
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.refCount = b.refCount + 1, b.orphanedAt = NULL WHERE b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    /**
+     * Recomputes every blob's reference count from the attachments table.
+     *
+     * @return The number of blobs updated.
+     */
+    @Modifying
+    @Query(value = "UPDATE attachment_blobs SET ref_count = " +
+            "(SELECT COUNT(*) FROM attachments a WHERE a.blob_hash = attachment_blobs.hash)", nativeQuery = true)
+    int recomputeRefCounts();
+
+    /**
+     * Marks blobs without references as orphaned, starting their grace period.
+     *
+     * @param now The current time.
+     * @return The number of blobs newly marked.
+     */
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.orphanedAt = :now WHERE b.refCount = 0 AND b.orphanedAt IS NULL")
+    int markOrphans(@Param("now") LocalDateTime now);
+
+    /**
+     * Clears the orphan mark of blobs that are referenced again.
+     *
+     * @return The number of blobs updated.
+     */
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.orphanedAt = NULL WHERE b.refCount > 0 AND b.orphanedAt IS NOT NULL")
+    int clearReferencedOrphans();
+
+    /**
+     * Finds blobs that have been orphaned since before the cutoff.
+     *
+     * @param cutoff The end of the grace period.
+     * @return The hashes of the blobs eligible for deletion.
+     */
+    @Query("SELECT b.hash FROM AttachmentBlob b WHERE b.refCount = 0 AND b.orphanedAt < :cutoff")
+    List<String> findOrphanHashes(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Loads a blob and locks its row, so no upload can reference it while it is being deleted.
+     *
+     * @param hash The blob's content hash.
+     * @return An optional blob.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AttachmentBlob b WHERE b.hash = :hash")
+    Optional<AttachmentBlob> findByHashForUpdate(@Param("hash") String hash);
+}
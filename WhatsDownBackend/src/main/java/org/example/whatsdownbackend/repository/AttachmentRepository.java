@@ -3,6 +3,8 @@ package org.example.whatsdownbackend.repository;
 import org.example.whatsdownbackend.entity.Attachment;
 import org.example.whatsdownbackend.entity.Message;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -17,4 +19,30 @@ public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
      * @return An optional attachment.
      */
     Optional<Attachment> findByMessage(Message message);
+
+    /**
+     * Loads what a download needs, including the owning chat's ID for the membership check,
+     * in a single query and without loading the message entity.
+     *
+     * @param attachmentId The ID of the attachment.
+     * @return An optional view of the attachment's file.
+     */
+    @Query("SELECT a.id AS id, a.fileName AS fileName, a.fileType AS fileType, a.fileUrl AS fileUrl, " +
+            "m.chat.id AS chatId FROM Attachment a JOIN a.message m WHERE a.id = :attachmentId")
+    Optional<FileView> findFileViewById(@Param("attachmentId") Long attachmentId);
+
+    /**
+     * Projection of an attachment's stored file.
+     */
+    interface FileView {
+        Long getId();
+
+        String getFileName();
+
+        String getFileType();
+
+        String getFileUrl();
+
+        Long getChatId();
+    }
 }
@@ -0,0 +1,62 @@
+package org.example.whatsdownbackend.repository;
+
+import org.example.whatsdownbackend.entity.ChatReadState;
+import org.example.whatsdownbackend.entity.ChatUserId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChatReadStateRepository extends JpaRepository<ChatReadState, ChatUserId> {
+
+    /**
+     * Moves a member's read watermark forward with a single upsert. The watermark never moves
+     * backwards, so concurrent or out-of-order calls are harmless.
+     *
+     * @param chatId    The ID of the chat.
+     * @param userId    The ID of the member.
+     * @param messageId The ID of the newest message the member has read.
+     * @param now       The time of the update.
+     * @return The number of affected rows as reported by the driver.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO chat_read_state (chat_id, user_id, last_read_message_id, updated_at) " +
+            "VALUES (:chatId, :userId, :messageId, :now) " +
+            "ON DUPLICATE KEY UPDATE " +
+            // Assignments are applied left to right, so updated_at still sees the old watermark
+            "updated_at = IF(VALUES(last_read_message_id) > last_read_message_id, VALUES(updated_at), updated_at), " +
+            "last_read_message_id = GREATEST(last_read_message_id, VALUES(last_read_message_id))",
+            nativeQuery = true)
+    int advanceWatermark(@Param("chatId") Long chatId,
+                         @Param("userId") Long userId,
+                         @Param("messageId") Long messageId,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Lists every member of a chat with their read watermark, if they have one.
+     *
+     * @param chatId The ID of the chat.
+     * @return One row per member.
+     */
+    @Query("SELECT cu.id.userId AS userId, u.username AS username, " +
+            "rs.lastReadMessageId AS lastReadMessageId, rs.updatedAt AS updatedAt " +
+            "FROM ChatUser cu JOIN cu.user u " +
+            "LEFT JOIN ChatReadState rs ON rs.id.chatId = cu.id.chatId AND rs.id.userId = cu.id.userId " +
+            "WHERE cu.id.chatId = :chatId")
+    List<ReadStateView> findReadStates(@Param("chatId") Long chatId);
+
+    /**
+     * Read-only projection of a member's read state.
+     */
+    interface ReadStateView {
+        Long getUserId();
+        String getUsername();
+        Long getLastReadMessageId(); // Null if the member has never read anything
+        LocalDateTime getUpdatedAt();
+    }
+}
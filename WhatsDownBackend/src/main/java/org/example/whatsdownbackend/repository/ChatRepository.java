@@ -3,10 +3,12 @@ package org.example.whatsdownbackend.repository;
 import org.example.whatsdownbackend.entity.Chat;
 import org.example.whatsdownbackend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -39,4 +41,68 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
      */
     @Query("SELECT c FROM Chat c JOIN c.users u1 JOIN c.users u2 WHERE u1 = :user1 AND u2 = :user2 AND c.isGroup = false")
     List<Chat> findOneOnOneChat(@Param("user1") User user1, @Param("user2") User user2);
+
+    /**
+     * Builds the chat-list summary of every chat a user belongs to in a single round trip:
+     * member count, the last message and the caller's unread count, newest activity first.
+     * The last message is found through the (chat_id, id) index and unread messages are counted as
+     * the range above the caller's read watermark, so no chat history is loaded.
+     *
+     * @param userId        The ID of the user whose chats are summarized.
+     * @param previewLength The maximum number of characters of the last message to return.
+     * @return One summary row per chat.
+     */
+    @Query(value = "SELECT c.id AS id, c.is_group AS isGroup, c.name AS name, " +
+            "(SELECT COUNT(*) FROM chat_users mc WHERE mc.chat_id = c.id) AS memberCount, " +
+            "lm.id AS lastMessageId, SUBSTRING(lm.content, 1, :previewLength) AS lastMessagePreview, " +
+            "lm.sender_id AS lastMessageSenderId, s.username AS lastMessageSender, lm.timestamp AS lastMessageTime, " +
+            "(SELECT COUNT(*) FROM messages um WHERE um.chat_id = c.id AND um.id > COALESCE(rs.last_read_message_id, 0) " +
+            "AND (um.sender_id IS NULL OR um.sender_id <> :userId)) AS unreadCount " +
+            "FROM chat_users cu " +
+            "JOIN chats c ON c.id = cu.chat_id " +
+            "LEFT JOIN chat_read_state rs ON rs.chat_id = cu.chat_id AND rs.user_id = cu.user_id " +
+            "LEFT JOIN messages lm ON lm.id = (SELECT MAX(m.id) FROM messages m WHERE m.chat_id = c.id) " +
+            "LEFT JOIN users s ON s.id = lm.sender_id " +
+            "WHERE cu.user_id = :userId " +
+            "ORDER BY COALESCE(lm.id, 0) DESC, c.id DESC",
+            nativeQuery = true)
+    List<ChatSummaryView> findChatSummaries(@Param("userId") Long userId, @Param("previewLength") int previewLength);
+
+    /**
+     * Advances a chat's message sequence, locking the chat row until the transaction ends
+     * so that sequence numbers of the same chat are committed in order.
+     *
+     * @param chatId The ID of the chat.
+     * @param count  The number of sequence numbers to reserve.
+     * @return The number of rows updated; 0 if the chat does not exist.
+     */
+    @Modifying
+    @Query(value = "UPDATE chats SET last_seq = last_seq + :count WHERE id = :chatId", nativeQuery = true)
+    int advanceLastSeq(@Param("chatId") Long chatId, @Param("count") int count);
+
+    /**
+     * Reads a chat's current message sequence; after {@link #advanceLastSeq(Long, int)} this is
+     * the last number reserved by the current transaction.
+     *
+     * @param chatId The ID of the chat.
+     * @return The sequence number of the chat's newest message, or null if the chat does not exist.
+     */
+    @Query(value = "SELECT last_seq FROM chats WHERE id = :chatId", nativeQuery = true)
+    Long findLastSeq(@Param("chatId") Long chatId);
+
+    /**
+     * Read-only projection of a row returned by {@link #findChatSummaries(Long, int)}.
+     */
+    interface ChatSummaryView {
+        Long getId();
+        Boolean getIsGroup();
+        String getName();
+        Long getMemberCount();
+        Long getLastMessageId();
+        String getLastMessagePreview();
+        Long getLastMessageSenderId();
+        String getLastMessageSender();
+        LocalDateTime getLastMessageTime();
+        Long getUnreadCount();
+    }
 }
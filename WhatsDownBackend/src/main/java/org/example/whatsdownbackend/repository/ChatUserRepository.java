@@ -3,11 +3,44 @@ package org.example.whatsdownbackend.repository;
 import org.example.whatsdownbackend.entity.ChatUser;
 import org.example.whatsdownbackend.entity.ChatUserId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ChatUserRepository extends JpaRepository<ChatUser, ChatUserId> {
-    // Additional query methods can be defined here if needed
-}
\ No newline at end of file
+
+    /**
+     * Checks whether a user belongs to a chat with a single primary-key lookup on chat_users,
+     * without loading the chat or any of its members.
+     *
+     * @param chatId The ID of the chat.
+     * @param userId The ID of the user.
+     * @return True if the membership row exists.
+     */
+    @Query("SELECT CASE WHEN COUNT(cu) > 0 THEN true ELSE false END FROM ChatUser cu " +
+            "WHERE cu.id.chatId = :chatId AND cu.id.userId = :userId")
+    boolean existsMembership(@Param("chatId") Long chatId, @Param("userId") Long userId);
+
+    /**
+     * Lists the member IDs of several chats at once, straight from the join table.
+     *
+     * @param chatIds The IDs of the chats.
+     * @return Pairs of [chatId, userId].
+     */
+    @Query("SELECT cu.id.chatId, cu.id.userId FROM ChatUser cu WHERE cu.id.chatId IN :chatIds")
+    List<Object[]> findMemberIdsByChatIds(@Param("chatIds") Collection<Long> chatIds);
+
+    /**
+     * Lists the IDs of the chats a user belongs to.
+     *
+     * @param userId The ID of the user.
+     * @return The chat IDs.
+     */
+    @Query("SELECT cu.id.chatId FROM ChatUser cu WHERE cu.id.userId = :userId")
+    List<Long> findChatIdsByUserId(@Param("userId") Long userId);
+}
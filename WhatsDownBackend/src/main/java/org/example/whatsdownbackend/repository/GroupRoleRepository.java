@@ -1,12 +1,20 @@
 package org.example.whatsdownbackend.repository;
 
 import org.example.whatsdownbackend.entity.GroupRole;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface GroupRoleRepository extends JpaRepository<GroupRole, Long> {
-    Optional<GroupRole> findByName(String name);
+public interface GroupRoleRepository extends NaturalIdRepository<GroupRole, Long> {
+
+    /**
+     * Finds a group role by its unique name through the natural-id cache.
+     *
+     * @param name The name, e.g. GROUP_OWNER.
+     * @return The group role, if it exists.
+     */
+    default Optional<GroupRole> findByName(String name) {
+        return findBySimpleNaturalId(name);
+    }
 }
@@ -4,12 +4,11 @@ import org.example.whatsdownbackend.entity.Chat;
 import org.example.whatsdownbackend.entity.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
@@ -24,14 +23,75 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     Page<Message> findByChatOrderByTimestampAsc(Chat chat, Pageable pageable);
 
     /**
-     * Marks multiple messages as read based on their IDs.
+     * Retrieves the newest messages of a chat, newest first.
+     * Served from the (chat_id, id) index without an OFFSET or a COUNT query.
      *
-     * @param messageIds List of message IDs to be marked as read.
+     * @param chatId   The ID of the chat.
+     * @param pageable Only the page size is used.
+     * @return A slice of messages ordered by ID descending.
      */
-    void deleteByIdIn(Iterable<Long> messageIds);
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.attachment " +
+            "WHERE m.chat.id = :chatId ORDER BY m.id DESC")
+    Slice<Message> findLatestByChatId(@Param("chatId") Long chatId, Pageable pageable);
+
+    /**
+     * Retrieves the messages of a chat older than the given message, newest first.
+     *
+     * @param chatId   The ID of the chat.
+     * @param beforeId Exclusive upper bound on the message ID.
+     * @param pageable Only the page size is used.
+     * @return A slice of messages ordered by ID descending.
+     */
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.attachment " +
+            "WHERE m.chat.id = :chatId AND m.id < :beforeId ORDER BY m.id DESC")
+    Slice<Message> findByChatIdBefore(@Param("chatId") Long chatId,
+                                      @Param("beforeId") Long beforeId,
+                                      Pageable pageable);
 
-    @Modifying
-    @Transactional
-    @Query("UPDATE Message m SET m.isRead = true WHERE m.id IN :messageIds")
-    void markMessagesAsRead(@Param("messageIds") Iterable<Long> messageIds);
+    /**
+     * Retrieves the messages of a chat newer than the given message, oldest first.
+     *
+     * @param chatId   The ID of the chat.
+     * @param afterId  Exclusive lower bound on the message ID.
+     * @param pageable Only the page size is used.
+     * @return A slice of messages ordered by ID ascending.
+     */
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.attachment " +
+            "WHERE m.chat.id = :chatId AND m.id > :afterId ORDER BY m.id ASC")
+    Slice<Message> findByChatIdAfter(@Param("chatId") Long chatId,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    /**
+     * Retrieves the messages of a chat after the given sequence number, in sequence order.
+     * A range read of the (chat_id, seq) index; used by reconnecting clients to fill their gaps.
+     *
+     * @param chatId   The ID of the chat.
+     * @param afterSeq Exclusive lower bound on the sequence number.
+     * @param pageable Only the page size is used.
+     * @return A slice of messages ordered by sequence number ascending.
+     */
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.sender LEFT JOIN FETCH m.attachment " +
+            "WHERE m.chat.id = :chatId AND m.seq > :afterSeq ORDER BY m.seq ASC")
+    Slice<Message> findByChatIdAfterSeq(@Param("chatId") Long chatId,
+                                        @Param("afterSeq") Long afterSeq,
+                                        Pageable pageable);
+
+    /**
+     * Finds the newest message of a chat that is not newer than the given ID.
+     * A single probe of the (chat_id, id) index.
+     *
+     * @param chatId    The ID of the chat.
+     * @param messageId Inclusive upper bound on the message ID.
+     * @return The message ID, or null if the chat has no message up to that ID.
+     */
+    @Query("SELECT MAX(m.id) FROM Message m WHERE m.chat.id = :chatId AND m.id <= :messageId")
+    Long findLatestIdUpTo(@Param("chatId") Long chatId, @Param("messageId") Long messageId);
+
+    /**
+     * Deletes multiple messages based on their IDs.
+     *
+     * @param messageIds List of message IDs to be deleted.
+     */
+    void deleteByIdIn(Iterable<Long> messageIds);
 }
@@ -0,0 +1,22 @@
+package org.example.whatsdownbackend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Optional;
+
+/**
+ * Repository for entities with a {@code @NaturalId}. Lookups by natural ID go through
+ * Hibernate's natural-id cache, so repeated lookups of cached entities run no SQL.
+ */
+@NoRepositoryBean
+public interface NaturalIdRepository<T, ID> extends JpaRepository<T, ID> {
+
+    /**
+     * Finds an entity by its simple (single attribute) natural ID.
+     *
+     * @param naturalId The natural ID value.
+     * @return The entity, if it exists.
+     */
+    Optional<T> findBySimpleNaturalId(Object naturalId);
+}
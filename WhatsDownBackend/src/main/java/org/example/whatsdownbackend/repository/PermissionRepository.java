@@ -1,10 +1,18 @@
 package org.example.whatsdownbackend.repository;
 
 import org.example.whatsdownbackend.entity.Permission;
-import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface PermissionRepository extends JpaRepository<Permission, Long> {
-    Optional<Permission> findByName(String name);
+public interface PermissionRepository extends NaturalIdRepository<Permission, Long> {
+
+    /**
+     * Finds a permission by its unique name through the natural-id cache.
+     *
+     * @param name The name, e.g. SEND_MESSAGE.
+     * @return The permission, if it exists.
+     */
+    default Optional<Permission> findByName(String name) {
+        return findBySimpleNaturalId(name);
+    }
 }
\ No newline at end of file
@@ -3,8 +3,13 @@ package org.example.whatsdownbackend.repository;
 import org.example.whatsdownbackend.entity.RefreshToken;
 import org.example.whatsdownbackend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,15 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     Optional<RefreshToken> findByToken(String token);
     int deleteByUser(User user);
     Optional<RefreshToken> findByUser(User user);
+
+    /**
+     * Deletes refresh tokens that have expired. A range scan of the expiry_date index.
+     *
+     * @param now The current instant.
+     * @return The number of rows deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiryDate <= :now")
+    int deleteExpired(@Param("now") Instant now);
 }
@@ -1,10 +1,18 @@
 package org.example.whatsdownbackend.repository;
 
 import org.example.whatsdownbackend.entity.Role;
-import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface RoleRepository extends JpaRepository<Role, Long> {
-    Optional<Role> findByName(String name);
+public interface RoleRepository extends NaturalIdRepository<Role, Long> {
+
+    /**
+     * Finds a role by its unique name through the natural-id cache.
+     *
+     * @param name The name, e.g. ROLE_USER.
+     * @return The role, if it exists.
+     */
+    default Optional<Role> findByName(String name) {
+        return findBySimpleNaturalId(name);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package org.example.whatsdownbackend.repository;
+
+import org.example.whatsdownbackend.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    /**
+     * Finds upload sessions that have not received data since the given time.
+     *
+     * @param cutoff The time before which a session counts as abandoned.
+     * @return The abandoned sessions.
+     */
+    List<UploadSession> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
@@ -2,7 +2,12 @@ package org.example.whatsdownbackend.repository;
 
 import org.example.whatsdownbackend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +15,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
     Boolean existsByUsername(String username);
     Optional<User> findByUsername(String username);
+
+    /**
+     * Reads the persisted last-seen time of several users without loading the users or their roles.
+     *
+     * @param ids The IDs of the users.
+     * @return One row per existing user.
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.lastSeen AS lastSeen FROM User u WHERE u.id IN :ids")
+    List<LastSeenView> findLastSeenByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Read-only projection of a user's persisted last-seen time.
+     */
+    interface LastSeenView {
+        Long getId();
+        String getUsername();
+        LocalDateTime getLastSeen();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package org.example.whatsdownbackend.security;
+
+import org.example.whatsdownbackend.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * The principal placed in the security context for JWT-authenticated requests.
+ * Carries the resolved user's ID and a detached snapshot of the user, so controllers
+ * can obtain the current user without querying the database again.
+ */
+public class AuthenticatedPrincipal extends org.springframework.security.core.userdetails.User {
+
+    private final User snapshot;
+
+    public AuthenticatedPrincipal(User user, Collection<? extends GrantedAuthority> authorities) {
+        super(user.getEmail(), user.getPassword(), authorities);
+        this.snapshot = copyOf(user);
+    }
+
+    public Long getId() {
+        return snapshot.getId();
+    }
+
+    /**
+     * Returns a detached copy of the user as it was when the principal was resolved.
+     * Roles are included; the lazy chat collection is left empty.
+     *
+     * @return A fresh User instance the caller may freely modify.
+     */
+    public User toUser() {
+        return copyOf(snapshot);
+    }
+
+    private static User copyOf(User source) {
+        User copy = new User();
+        copy.setId(source.getId());
+        copy.setUsername(source.getUsername());
+        copy.setEmail(source.getEmail());
+        copy.setPassword(source.getPassword());
+        copy.setAvatar(source.getAvatar());
+        copy.setStatus(source.getStatus());
+        copy.setLastSeen(source.getLastSeen());
+        copy.setProvider(source.getProvider());
+        copy.setProviderId(source.getProviderId());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        copy.setRoles(new HashSet<>(source.getRoles()));
+        return copy;
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.whatsdownbackend.security;
+
+import org.example.whatsdownbackend.entity.RevokedToken;
+import org.example.whatsdownbackend.repository.RevokedTokenRepository;
+import org.example.whatsdownbackend.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Revocation store shared by every node through the revoked_tokens table.
+ * Lookups are primary-key reads; revocations seen by this node are also kept locally
+ * so a revoked token that keeps retrying does not hit the database each time.
+ * Tokens found not revoked are remembered for a short TTL, so a token in active use costs
+ * one read per TTL instead of one per request; a revocation made on another node can
+ * therefore take up to that TTL to be seen here.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.revocation.store", havingValue = "database")
+public class DatabaseTokenRevocationStore implements TokenRevocationStore {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private final BoundedCache<String, Instant> knownRevocations = new BoundedCache<>(10_000, 0);
+    private final BoundedCache<String, Boolean> knownValid;
+
+    public DatabaseTokenRevocationStore(
+            @Value("${app.jwt.revocation.negative-cache-size:100000}") int negativeCacheSize,
+            @Value("${app.jwt.revocation.negative-cache-ttl-ms:5000}") long negativeCacheTtlMs
+    ) {
+        this.knownValid = new BoundedCache<>(negativeCacheSize, negativeCacheTtlMs);
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return; // Already expired; the token is rejected anyway
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+        knownRevocations.put(tokenId, expiresAt);
+        knownValid.invalidate(tokenId);
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        Instant now = Instant.now();
+        Instant known = knownRevocations.get(tokenId);
+        if (known != null) {
+            return known.isAfter(now);
+        }
+        if (knownValid.get(tokenId) != null) {
+            return false;
+        }
+
+        return revokedTokenRepository.findById(tokenId)
+                .map(revokedToken -> {
+                    knownRevocations.put(tokenId, revokedToken.getExpiresAt());
+                    return revokedToken.getExpiresAt().isAfter(now);
+                })
+                .orElseGet(() -> {
+                    knownValid.put(tokenId, Boolean.TRUE);
+                    return false;
+                });
+    }
+
+    /**
+     * Purges revocations whose tokens have expired.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        revokedTokenRepository.deleteExpired(Instant.now());
+    }
+}
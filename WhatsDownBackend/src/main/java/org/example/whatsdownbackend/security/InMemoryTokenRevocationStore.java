@@ -0,0 +1,95 @@
+package org.example.whatsdownbackend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single-node revocation store. Entries live in a hashed timing wheel and are dropped
+ * within one tick of their token's expiry, so memory stays flat under sustained logout traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.revocation.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTokenRevocationStore implements TokenRevocationStore {
+
+    private final long tickMillis;
+    private final Queue<String>[] wheel;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>(); // token ID -> expiry in epoch millis
+
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryTokenRevocationStore(
+            @Value("${app.jwt.revocation.tick-ms:1000}") long tickMillis,
+            @Value("${app.jwt.revocation.wheel-size:3600}") int wheelSize
+    ) {
+        this.tickMillis = tickMillis;
+        this.wheel = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return; // Already expired; the token is rejected anyway
+        }
+        revoked.put(tokenId, expiresAtMillis);
+        wheel[slotOf(expiresAtMillis / tickMillis)].add(tokenId);
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        Long expiresAtMillis = revoked.get(tokenId);
+        return expiresAtMillis != null && expiresAtMillis > System.currentTimeMillis();
+    }
+
+    /**
+     * Advances the wheel, dropping entries whose tokens have expired.
+     * Entries further out than one revolution stay in their slot until a later round.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.tick-ms:1000}")
+    public synchronized void expireEntries() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMillis;
+        // After a long pause one full revolution is enough to visit every slot
+        long ticksToProcess = Math.min(currentTick - lastTick, wheel.length);
+
+        for (long tick = currentTick - ticksToProcess + 1; tick <= currentTick; tick++) {
+            Iterator<String> iterator = wheel[slotOf(tick)].iterator();
+            while (iterator.hasNext()) {
+                String tokenId = iterator.next();
+                Long expiresAtMillis = revoked.get(tokenId);
+                if (expiresAtMillis == null) {
+                    iterator.remove();
+                } else if (expiresAtMillis <= now) {
+                    revoked.remove(tokenId, expiresAtMillis);
+                    iterator.remove();
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+
+    /**
+     * @return The number of revoked tokens currently remembered.
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % wheel.length);
+    }
+}
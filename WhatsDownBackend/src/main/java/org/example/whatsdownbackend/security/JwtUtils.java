@@ -3,14 +3,21 @@ package org.example.whatsdownbackend.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.util.BoundedCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
@@ -18,15 +25,27 @@ public class JwtUtils {
     private final Key key;
     private final long jwtExpirationMs;
 
-    // Simple in-memory token blacklist. For production, use a persistent store like Redis.
-    private Set<String> tokenBlacklist = ConcurrentHashMap.newKeySet();
+    // Built once; the parser is immutable and safe to share between threads
+    private final JwtParser parser;
+
+    // Recently verified tokens keyed by their SHA-256 digest, so repeated requests skip the signature check
+    private final BoundedCache<String, VerifiedToken> verifiedTokens;
+
+    // Revoked tokens by compact ID, dropped once the token expires
+    private final TokenRevocationStore revocationStore;
 
     public JwtUtils(
             @Value("${app.jwtSecret}") String jwtSecret,
-            @Value("${app.jwtExpirationMs}") long jwtExpirationMs
+            @Value("${app.jwtExpirationMs}") long jwtExpirationMs,
+            @Value("${app.jwt.verified-cache.max-size:10000}") int verifiedCacheSize,
+            TokenRevocationStore revocationStore
     ) {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
         this.jwtExpirationMs = jwtExpirationMs;
+        this.revocationStore = revocationStore;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        // No TTL: a cached entry is only ever served until the token's own expiry
+        this.verifiedTokens = new BoundedCache<>(verifiedCacheSize, 0);
     }
 
     /**
@@ -40,6 +59,7 @@ public class JwtUtils {
                 (org.springframework.security.core.userdetails.User) authentication.getPrincipal();
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString()) // Compact ID used for revocation
                 .setSubject(userPrincipal.getUsername()) // Typically the email
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
@@ -55,6 +75,7 @@ public class JwtUtils {
      */
     public String generateJwtTokenFromUser(User user) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString()) // Compact ID used for revocation
                 .setSubject(user.getEmail())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
@@ -62,19 +83,49 @@ public class JwtUtils {
                 .compact();
     }
 
+    /**
+     * Verifies the token once and extracts its claims.
+     * Tokens verified before are served from a small LRU keyed by the token's digest
+     * until they expire; revocation is checked on every call.
+     *
+     * @param token The JWT token.
+     * @return The verified claims, or empty if the token is invalid, expired or revoked.
+     */
+    public Optional<VerifiedToken> verifyAndExtract(String token) {
+        if (!StringUtils.hasText(token)) {
+            return Optional.empty();
+        }
+
+        String digest = tokenDigest(token);
+        VerifiedToken verified = verifiedTokens.get(digest);
+        if (verified == null) {
+            verified = parse(token);
+            if (verified == null) {
+                return Optional.empty();
+            }
+            verifiedTokens.put(digest, verified);
+        } else if (verified.isExpired(Instant.now())) {
+            verifiedTokens.invalidate(digest);
+            return Optional.empty();
+        }
+
+        if (revocationStore.isRevoked(revocationId(verified, digest))) {
+            return Optional.empty();
+        }
+        return Optional.of(verified);
+    }
+
     /**
      * Extracts the user's email from the JWT token.
      *
      * @param token The JWT token.
      * @return The user's email.
+     * @throws JwtException if the token is invalid, expired or revoked.
      */
     public String getUserEmailFromJwtToken(String token){
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verifyAndExtract(token)
+                .map(VerifiedToken::getSubject)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
     }
 
     /**
@@ -84,14 +135,53 @@ public class JwtUtils {
      * @return True if valid and not revoked, false otherwise.
      */
     public boolean validateJwtToken(String authToken){
-        if (isTokenRevoked(authToken)) {
-            return false;
-        }
+        return verifyAndExtract(authToken).isPresent();
+    }
+
+    /**
+     * Revokes a token until it expires. Invalid or already expired tokens are ignored.
+     *
+     * @param token The JWT token to revoke.
+     */
+    public void revokeToken(String token) {
+        verifyAndExtract(token).ifPresent(verified -> {
+            Instant expiresAt = verified.getExpiresAt() != null
+                    ? verified.getExpiresAt()
+                    : Instant.now().plusMillis(jwtExpirationMs);
+            revocationStore.revoke(revocationId(verified, tokenDigest(token)), expiresAt);
+        });
+    }
+
+    /**
+     * Checks if a token is revoked.
+     *
+     * @param token The JWT token to check.
+     * @return True if revoked, false otherwise.
+     */
+    public boolean isTokenRevoked(String token) {
+        VerifiedToken verified = parse(token);
+        return verified != null && revocationStore.isRevoked(revocationId(verified, tokenDigest(token)));
+    }
 
+    /**
+     * Tokens are revoked by their jti; tokens issued before jti was added fall back to their digest.
+     */
+    private static String revocationId(VerifiedToken verified, String digest) {
+        return verified.getTokenId() != null ? verified.getTokenId() : digest;
+    }
+
+    /**
+     * Parses and verifies the token's signature.
+     *
+     * @return The extracted claims, or null if the token is not valid.
+     */
+    private VerifiedToken parse(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException e){
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            return new VerifiedToken(claims.getSubject(), claims.getId(),
+                    expiration != null ? expiration.toInstant() : null);
+        } catch (io.jsonwebtoken.security.SecurityException e){
             System.err.println("Invalid JWT signature: " + e.getMessage());
         } catch (MalformedJwtException e){
             System.err.println("Invalid JWT token: " + e.getMessage());
@@ -101,26 +191,24 @@ public class JwtUtils {
             System.err.println("JWT token is unsupported: " + e.getMessage());
         } catch (IllegalArgumentException e){
             System.err.println("JWT claims string is empty: " + e.getMessage());
+        } catch (JwtException e){
+            System.err.println("JWT token is invalid: " + e.getMessage());
         }
-        return false;
-    }
-
-    /**
-     * Adds a token to the blacklist.
-     *
-     * @param token The JWT token to revoke.
-     */
-    public void revokeToken(String token) {
-        tokenBlacklist.add(token);
+        return null;
     }
 
     /**
-     * Checks if a token is revoked.
+     * Computes a compact, fixed-size key for a token.
      *
-     * @param token The JWT token to check.
-     * @return True if revoked, false otherwise.
+     * @param token The JWT token.
+     * @return The URL-safe Base64 encoding of the token's SHA-256 digest.
      */
-    public boolean isTokenRevoked(String token) {
-        return tokenBlacklist.contains(token);
+    static String tokenDigest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
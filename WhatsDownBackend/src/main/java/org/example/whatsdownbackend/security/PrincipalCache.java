@@ -0,0 +1,78 @@
+package org.example.whatsdownbackend.security;
+
+import org.example.whatsdownbackend.service.impl.UserDetailsServiceImpl;
+import org.example.whatsdownbackend.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-node cache of authenticated principals keyed by the token subject (the user's email).
+ * In the steady state an authenticated request resolves its principal without any SQL.
+ * <p>
+ * Evictions made inside a transaction, such as those of the JPA and Hibernate listeners, are
+ * repeated once it commits.
+ */
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    @Lazy
+    private UserDetailsServiceImpl userDetailsService;
+
+    private final BoundedCache<String, AuthenticatedPrincipal> principals;
+
+    public PrincipalCache(
+            @Value("${app.security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${app.security.principal-cache.ttl-ms:60000}") long ttlMs
+    ) {
+        this.principals = new BoundedCache<>(maxSize, ttlMs);
+    }
+
+    /**
+     * Returns the principal for a token subject, loading it from the database on a miss.
+     *
+     * @param email The subject of the token.
+     * @return The principal with its resolved authorities.
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException if the user no longer exists.
+     */
+    public AuthenticatedPrincipal resolve(String email) {
+        return principals.computeIfAbsent(email, userDetailsService::loadPrincipalByEmail);
+    }
+
+    /**
+     * Drops the cached principal of a single user, e.g. on logout or profile change.
+     *
+     * @param email The user's email.
+     */
+    public void evict(String email) {
+        principals.invalidate(email);
+        afterCommit(() -> principals.invalidate(email));
+    }
+
+    /**
+     * Drops every cached principal, e.g. when the permissions of a role change.
+     */
+    public void evictAll() {
+        principals.invalidateAll();
+        afterCommit(principals::invalidateAll);
+    }
+
+    /**
+     * Runs the action again once the surrounding transaction commits, so a concurrent
+     * request cannot re-cache the principal from before the change.
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.whatsdownbackend.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.whatsdownbackend.entity.Role;
+import org.example.whatsdownbackend.entity.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate listener that evicts cached principals when a user's roles or a role's permissions
+ * change. Those live in join tables, so changing only them updates no entity row and JPA's
+ * {@code @PostUpdate} in {@link PrincipalCacheInvalidator} never fires.
+ */
+@Component
+public class PrincipalCacheCollectionInvalidator implements PostCollectionRecreateEventListener,
+        PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private static final String USER_ROLES = User.class.getName() + ".roles";
+    private static final String ROLE_PERMISSIONS = Role.class.getName() + ".permissions";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Lazy
+    private PrincipalCache principalCache;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        onChange(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onChange(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        onChange(event);
+    }
+
+    private void onChange(AbstractCollectionEvent event) {
+        String collection = event.getCollection().getRole();
+        Object owner = event.getAffectedOwnerOrNull();
+        if (USER_ROLES.equals(collection) && owner instanceof User user) {
+            principalCache.evict(user.getEmail());
+            if (user.getPersistedEmail() != null) {
+                principalCache.evict(user.getPersistedEmail());
+            }
+        } else if (ROLE_PERMISSIONS.equals(collection)) {
+            // A role's permissions feed the authorities of every user holding it
+            principalCache.evictAll();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.whatsdownbackend.security;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.example.whatsdownbackend.entity.Role;
+import org.example.whatsdownbackend.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * JPA entity listener that keeps the {@link PrincipalCache} in step with user and role changes,
+ * whichever code path makes them. Changes to a user's roles alone do not update the user row;
+ * {@link PrincipalCacheCollectionInvalidator} covers those.
+ */
+public class PrincipalCacheInvalidator {
+
+    @Autowired
+    @Lazy
+    private PrincipalCache principalCache;
+
+    @PostLoad
+    @PostPersist
+    public void onRead(Object entity) {
+        if (entity instanceof User user) {
+            user.setPersistedEmail(user.getEmail());
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (principalCache == null) {
+            return;
+        }
+        if (entity instanceof User user) {
+            principalCache.evict(user.getEmail());
+            if (user.getPersistedEmail() != null && !user.getPersistedEmail().equals(user.getEmail())) {
+                // The token subject is the email, so the principal is still cached under the old one
+                principalCache.evict(user.getPersistedEmail());
+            }
+            user.setPersistedEmail(user.getEmail());
+        } else if (entity instanceof Role) {
+            // A role's permissions feed the authorities of every user holding it
+            principalCache.evictAll();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.example.whatsdownbackend.security;
 
-import org.example.whatsdownbackend.service.impl.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -9,10 +8,11 @@ import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.util.Optional;
+
 @Component
 public class StompChannelInterceptor implements ChannelInterceptor {
 
@@ -20,7 +20,7 @@ public class StompChannelInterceptor implements ChannelInterceptor {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private PrincipalCache principalCache;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -28,12 +28,12 @@ public class StompChannelInterceptor implements ChannelInterceptor {
 
         if (StompCommand.CONNECT.equals(accessor.getCommand())) {
             String token = accessor.getFirstNativeHeader("token");
+            Optional<VerifiedToken> verifiedToken = jwtUtils.verifyAndExtract(token);
 
-            if (StringUtils.hasText(token) && jwtUtils.validateJwtToken(token)) {
-                String email = jwtUtils.getUserEmailFromJwtToken(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            if (verifiedToken.isPresent()) {
+                AuthenticatedPrincipal principal = principalCache.resolve(verifiedToken.get().getSubject());
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 accessor.setUser(authentication);
             } else {
                 throw new IllegalArgumentException("Invalid or missing token");
@@ -0,0 +1,27 @@
+package org.example.whatsdownbackend.security;
+
+import java.time.Instant;
+
+/**
+ * Remembers revoked access tokens until they would have expired anyway.
+ * Tokens are identified by a compact ID (the jti claim, or a digest for tokens without one),
+ * never by the full token string.
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * Marks a token as revoked.
+     *
+     * @param tokenId   The compact ID of the token.
+     * @param expiresAt When the token expires; the entry is dropped after this instant.
+     */
+    void revoke(String tokenId, Instant expiresAt);
+
+    /**
+     * Checks whether a token has been revoked.
+     *
+     * @param tokenId The compact ID of the token.
+     * @return True if the token is revoked and not yet expired.
+     */
+    boolean isRevoked(String tokenId);
+}
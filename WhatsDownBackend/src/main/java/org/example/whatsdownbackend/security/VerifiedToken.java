@@ -0,0 +1,44 @@
+package org.example.whatsdownbackend.security;
+
+import java.time.Instant;
+
+/**
+ * The claims the application relies on, extracted from a JWT whose signature has been verified.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+    private final String tokenId;
+    private final Instant expiresAt;
+
+    public VerifiedToken(String subject, String tokenId, Instant expiresAt) {
+        this.subject = subject;
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return The subject of the token, i.e. the user's email.
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * @return The jti claim, or null for tokens issued without one.
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * @return When the token expires, or null if it carries no exp claim.
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
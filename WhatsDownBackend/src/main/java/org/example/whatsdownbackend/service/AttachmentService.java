@@ -1,7 +1,9 @@
 package org.example.whatsdownbackend.service;
 
+import org.example.whatsdownbackend.dto.AttachmentDownload;
 import org.example.whatsdownbackend.dto.AttachmentDto;
 import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.util.AttachmentVariant;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface AttachmentService {
@@ -17,13 +19,15 @@ public interface AttachmentService {
     AttachmentDto uploadAttachment(MultipartFile file, Long messageId, User currentUser);
 
     /**
-     * Downloads an attachment by its ID.
+     * Prepares an attachment, or one of its image variants, for a streamed download. The file is not read into memory.
      *
      * @param attachmentId The ID of the attachment.
+     * @param variant The variant to download, or null for the original file.
      * @param currentUser The current authenticated user.
-     * @return The attachment file as a byte array.
+     * @return The file resource and metadata.
+     * @throws java.util.NoSuchElementException if the variant does not exist (yet).
      */
-    byte[] downloadAttachment(Long attachmentId, User currentUser);
+    AttachmentDownload downloadAttachment(Long attachmentId, AttachmentVariant variant, User currentUser);
 
     /**
      * Retrieves attachment details by its ID.
@@ -0,0 +1,40 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.entity.AttachmentBlob;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface AttachmentStorageService {
+
+    /**
+     * Stores content in the content-addressed store, hashing it while it is written.
+     * If the same content is already stored, the new copy is discarded and the existing blob gains a reference.
+     *
+     * @param content The content to store.
+     * @return The blob holding the content.
+     */
+    AttachmentBlob store(InputStream content);
+
+    /**
+     * Stores a file already on disk, e.g. a completed chunked upload. The file is moved into the store,
+     * or deleted if its content is already stored.
+     *
+     * @param file The file to store; it must be on the same file system as the store.
+     * @return The blob holding the content.
+     */
+    AttachmentBlob storeFile(Path file);
+
+    /**
+     * Resolves where a blob's content lives on disk.
+     *
+     * @param hash The blob's content hash.
+     * @return The path of the blob's file.
+     */
+    Path blobPath(String hash);
+
+    /**
+     * Recomputes reference counts and deletes blobs that have been unreferenced for longer than the grace period.
+     */
+    void collectGarbage();
+}
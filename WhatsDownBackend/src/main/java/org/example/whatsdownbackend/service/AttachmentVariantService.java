@@ -0,0 +1,24 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.event.AttachmentStoredEvent;
+
+import java.nio.file.Path;
+
+public interface AttachmentVariantService {
+
+    /**
+     * Generates the variants of a stored image attachment in the background, once its transaction has committed.
+     * Non-image attachments are ignored.
+     *
+     * @param event The stored attachment.
+     */
+    void onAttachmentStored(AttachmentStoredEvent event);
+
+    /**
+     * Generates the variants of an image file that do not exist yet.
+     * Files ImageIO cannot decode are skipped.
+     *
+     * @param source The original image file.
+     */
+    void generateVariants(Path source);
+}
@@ -0,0 +1,34 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.entity.User;
+
+public interface ChatMembershipService {
+
+    /**
+     * Checks whether a user is a member of a chat without loading the chat's member list.
+     *
+     * @param chatId The ID of the chat.
+     * @param userId The ID of the user.
+     * @return True if the user is a member of the chat, false otherwise.
+     */
+    boolean isMember(Long chatId, Long userId);
+
+    /**
+     * Ensures the user is a member of the chat.
+     *
+     * @param chatId The ID of the chat.
+     * @param user   The user to check.
+     * @throws java.util.NoSuchElementException if the chat does not exist.
+     * @throws org.springframework.security.access.AccessDeniedException if the user is not a member.
+     */
+    void checkMembership(Long chatId, User user);
+
+    /**
+     * Drops the cached membership of a user in a chat.
+     * Inside a transaction the entry is dropped again after commit.
+     *
+     * @param chatId The ID of the chat.
+     * @param userId The ID of the user.
+     */
+    void evictMembership(Long chatId, Long userId);
+}
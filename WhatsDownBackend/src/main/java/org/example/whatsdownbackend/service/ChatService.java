@@ -1,6 +1,7 @@
 package org.example.whatsdownbackend.service;
 
 import org.example.whatsdownbackend.dto.ChatDto;
+import org.example.whatsdownbackend.dto.ChatSummaryDto;
 import org.example.whatsdownbackend.dto.CreateChatRequest;
 import org.example.whatsdownbackend.dto.AddUsersRequest;
 import org.example.whatsdownbackend.entity.User;
@@ -27,13 +28,23 @@ public interface ChatService {
     List<ChatDto> getUserChats(User currentUser);
 
     /**
-     * Retrieves details of a specific chat.
+     * Retrieves the chat-list summary of every chat the current user is part of:
+     * member count, last message preview and time, and the user's unread count.
      *
-     * @param chatId      The ID of the chat.
      * @param currentUser The current authenticated user.
+     * @return The chat summaries, most recently active first.
+     */
+    List<ChatSummaryDto> getUserChatSummaries(User currentUser);
+
+    /**
+     * Retrieves details of a specific chat.
+     *
+     * @param chatId          The ID of the chat.
+     * @param includeMessages Whether to attach the chat's full message history.
+     * @param currentUser     The current authenticated user.
      * @return The chat details.
      */
-    ChatDto getChatDetails(Long chatId, User currentUser);
+    ChatDto getChatDetails(Long chatId, boolean includeMessages, User currentUser);
 
     /**
      * Adds users to a group chat.
@@ -0,0 +1,59 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.dto.AttachmentDto;
+import org.example.whatsdownbackend.dto.CreateUploadRequest;
+import org.example.whatsdownbackend.dto.UploadSessionDto;
+import org.example.whatsdownbackend.entity.User;
+
+import java.io.InputStream;
+
+public interface ChunkedUploadService {
+
+    /**
+     * Starts a resumable upload for an attachment and preallocates its file.
+     *
+     * @param createUploadRequest The message to attach to, and the file's name, type and total size.
+     * @param currentUser         The current authenticated user.
+     * @return The new upload session.
+     */
+    UploadSessionDto createUpload(CreateUploadRequest createUploadRequest, User currentUser);
+
+    /**
+     * Retrieves the progress of an upload, e.g. to find the offset to resume from.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param currentUser The current authenticated user.
+     * @return The upload session.
+     */
+    UploadSessionDto getUpload(String uploadId, User currentUser);
+
+    /**
+     * Writes a chunk of the file at the given offset. The offset may not lie beyond the bytes received so far;
+     * chunks that overlap already received data (e.g. a retry after a dropped connection) are accepted.
+     * If the stream breaks off, the bytes written up to that point still count.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param offset      The position in the file the chunk starts at.
+     * @param data        The chunk's bytes.
+     * @param currentUser The current authenticated user.
+     * @return The upload session after the write.
+     */
+    UploadSessionDto writeChunk(String uploadId, long offset, InputStream data, User currentUser);
+
+    /**
+     * Completes an upload whose bytes have all been received and attaches the file to its message.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param currentUser The current authenticated user.
+     * @return The created attachment.
+     */
+    AttachmentDto completeUpload(String uploadId, User currentUser);
+
+    /**
+     * Cancels an upload and deletes its partial file.
+     *
+     * @param uploadId    The ID of the upload.
+     * @param currentUser The current authenticated user.
+     */
+    void cancelUpload(String uploadId, User currentUser);
+}
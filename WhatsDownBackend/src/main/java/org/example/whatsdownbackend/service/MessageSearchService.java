@@ -0,0 +1,35 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.dto.MessageSearchResultDto;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.event.MessageCreatedEvent;
+
+public interface MessageSearchService {
+
+    /**
+     * Searches the content of messages in the chats the current user belongs to, newest first.
+     *
+     * @param query       The search text. Supports quoted phrases, prefix* and -exclusion.
+     * @param chatId      Restricts the search to a single chat; may be null.
+     * @param cursor      Cursor returned by the previous page to load older hits; may be null.
+     * @param limit       The maximum number of hits to return.
+     * @param currentUser The current authenticated user.
+     * @return The matching messages with highlighted snippets and a cursor to the next page.
+     */
+    MessageSearchResultDto search(String query, Long chatId, String cursor, int limit, User currentUser);
+
+    /**
+     * Adds a newly written message to the index.
+     *
+     * @param event The event describing the message.
+     */
+    void onMessageCreated(MessageCreatedEvent event);
+
+    /**
+     * Drops the index and rebuilds it from the messages table in the background.
+     * Searches return partial results until the rebuild has finished.
+     *
+     * @throws IllegalStateException if a rebuild is already running.
+     */
+    void rebuildIndex();
+}
@@ -2,6 +2,7 @@ package org.example.whatsdownbackend.service;
 
 import org.example.whatsdownbackend.dto.ChatMessage;
 import org.example.whatsdownbackend.dto.MessageDto;
+import org.example.whatsdownbackend.dto.MessageSliceDto;
 import org.example.whatsdownbackend.dto.SendMessageRequest;
 import org.example.whatsdownbackend.dto.MarkMessagesAsReadRequest;
 import org.example.whatsdownbackend.entity.User;
@@ -30,10 +31,28 @@ public interface MessageService {
     Page<MessageDto> getMessagesForChat(Long chatId, Pageable pageable, User currentUser);
 
     /**
-     * Marks specified messages as read.
+     * Retrieves a slice of a chat's history using keyset cursors.
+     * Without a cursor the newest messages are returned.
+     * <p>
+     * Cursors follow message IDs, which follow commit order only while messages are saved as they are
+     * sent. In write-behind mode an ID is issued before the message waits in the queue, so a message
+     * can commit after a newer one was already returned, and an {@code after} cursor taken from that
+     * slice skips it. Clients catching up in that mode should sync by sequence number instead.
+     *
+     * @param chatId      The ID of the chat.
+     * @param before      Cursor to load messages older than; may be null.
+     * @param after       Cursor to load messages newer than; may be null.
+     * @param limit       The maximum number of messages to return.
+     * @param currentUser The current authenticated user.
+     * @return The messages in chronological order with cursors to the adjacent slices.
+     */
+    MessageSliceDto getMessageHistory(Long chatId, String before, String after, int limit, User currentUser);
+
+    /**
+     * Marks every message of a chat up to the given one as read by advancing the user's read watermark.
      *
      * @param chatId                    The ID of the chat.
-     * @param markMessagesAsReadRequest The request containing message IDs to mark as read.
+     * @param markMessagesAsReadRequest The request containing the last read message ID.
      * @param currentUser               The current authenticated user.
      */
     void markMessagesAsRead(Long chatId, MarkMessagesAsReadRequest markMessagesAsReadRequest, User currentUser);
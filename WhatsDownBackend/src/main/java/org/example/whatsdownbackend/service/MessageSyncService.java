@@ -0,0 +1,24 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.dto.ChatSyncDto;
+import org.example.whatsdownbackend.dto.SyncRequest;
+import org.example.whatsdownbackend.entity.User;
+
+import java.util.stream.Stream;
+
+public interface MessageSyncService {
+
+    /**
+     * Finds what a reconnecting client missed in each of its chats, as the messages after the
+     * sequence number it last saw. The request is validated and membership of every chat checked
+     * before this returns; the gaps themselves are read lazily, one chat at a time, as the stream is consumed.
+     * Each chat's gap is capped, as is the total across chats; capped chats report {@code hasMore}.
+     * Chats the client is already up to date on are left out.
+     *
+     * @param syncRequest The chats to sync with the last sequence number the client has for each.
+     * @param currentUser The current authenticated user.
+     * @return A stream of the chats with missed messages, in chat ID order.
+     * @throws IllegalArgumentException if no chats, or too many chats, are given.
+     */
+    Stream<ChatSyncDto> sync(SyncRequest syncRequest, User currentUser);
+}
@@ -0,0 +1,27 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.dto.ChatMessage;
+import org.example.whatsdownbackend.entity.User;
+
+public interface MessageWriteBehindService {
+
+    /**
+     * Indicates whether incoming WebSocket messages should go through the write-behind queue.
+     *
+     * @return True if write-behind persistence is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Accepts an incoming chat message for asynchronous persistence.
+     * The message is assigned its final ID immediately, so it can be broadcast before it is written.
+     * Its sequence number is assigned when it is written, in the insert's transaction. The sender then receives a
+     * {@link org.example.whatsdownbackend.dto.MessageAck} on /user/queue/acks and the chat's subscribers a
+     * {@link org.example.whatsdownbackend.dto.SequenceUpdate} on /topic/chat/{chatId}/seq.
+     *
+     * @param chatMessage The incoming chat message payload.
+     * @param currentUser The user sending the message.
+     * @return The accepted ChatMessage DTO, carrying the assigned message ID.
+     */
+    ChatMessage submit(ChatMessage chatMessage, User currentUser);
+}
@@ -0,0 +1,53 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.dto.PresenceDto;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PresenceService {
+
+    /**
+     * Registers a new STOMP session of a user. Announces the user as online unless they
+     * were already online or are reconnecting within the grace period.
+     *
+     * @param sessionId The ID of the STOMP session.
+     * @param userId    The ID of the user.
+     * @param username  The user's display name.
+     */
+    void sessionConnected(String sessionId, Long userId, String username);
+
+    /**
+     * Removes a STOMP session. Once the user has no sessions left they are announced as
+     * offline after the grace period, unless they reconnect in the meantime.
+     * Calling this more than once for a session is harmless.
+     *
+     * @param sessionId The ID of the STOMP session.
+     */
+    void sessionDisconnected(String sessionId);
+
+    /**
+     * Records activity on a session, e.g. a heartbeat or any other client frame.
+     * Sessions without activity for longer than the session timeout are considered gone.
+     *
+     * @param sessionId The ID of the STOMP session.
+     */
+    void sessionActive(String sessionId);
+
+    /**
+     * Retrieves the presence of several users, as seen by this node: users connected only to
+     * other nodes are reported offline, with their persisted last-seen time.
+     *
+     * @param userIds The IDs of the users.
+     * @return The presence of each existing user.
+     */
+    List<PresenceDto> getPresence(Collection<Long> userIds);
+
+    /**
+     * Checks whether a user has a live session on this node. Sessions on other nodes are not seen.
+     *
+     * @param userId The ID of the user.
+     * @return True if the user is online, including during the grace period after a disconnect.
+     */
+    boolean isOnline(Long userId);
+}
@@ -0,0 +1,42 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.dto.MessageDto;
+import org.example.whatsdownbackend.dto.ReadReceiptDto;
+import org.example.whatsdownbackend.entity.User;
+
+import java.util.List;
+
+public interface ReadStateService {
+
+    /**
+     * Marks every message of a chat up to and including the given one as read by a member.
+     * The watermark is clamped to the newest message that exists in the chat and never moves backwards.
+     * The caller is expected to have checked membership.
+     *
+     * @param chatId    The ID of the chat.
+     * @param userId    The ID of the member.
+     * @param messageId The ID of the newest message the member has read.
+     * @return The message ID the watermark was advanced to, or null if the chat has no such message.
+     */
+    Long markReadUpTo(Long chatId, Long userId, Long messageId);
+
+    /**
+     * Retrieves the read watermark of every member of a chat.
+     *
+     * @param chatId      The ID of the chat.
+     * @param messageId   If given, only members who have read this message are returned; may be null.
+     * @param currentUser The current authenticated user.
+     * @return The read receipts of the chat's members.
+     */
+    List<ReadReceiptDto> getReadReceipts(Long chatId, Long messageId, User currentUser);
+
+    /**
+     * Sets the read flag of messages from the chat's watermarks. A message from the current user
+     * is read once every other member has read it; any other message once the current user has.
+     *
+     * @param chatId      The ID of the chat the messages belong to.
+     * @param messages    The messages to update in place.
+     * @param currentUser The user the messages are shown to.
+     */
+    void applyReadFlags(Long chatId, List<MessageDto> messages, User currentUser);
+}
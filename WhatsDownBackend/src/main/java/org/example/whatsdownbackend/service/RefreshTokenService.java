@@ -11,4 +11,9 @@ public interface RefreshTokenService {
     RefreshToken createRefreshToken(User user);
     RefreshToken verifyExpiration(RefreshToken token);
     int deleteByUser(User user);
+
+    /**
+     * Deletes refresh tokens that have expired; runs periodically.
+     */
+    void purgeExpired();
 }
@@ -0,0 +1,42 @@
+package org.example.whatsdownbackend.service;
+
+import org.example.whatsdownbackend.dto.UserDirectoryPageDto;
+import org.example.whatsdownbackend.dto.UserProfileDto;
+import org.example.whatsdownbackend.entity.User;
+
+import java.util.List;
+
+public interface UserDirectoryService {
+
+    /**
+     * Pages through the users whose username or email starts with a prefix, in the order of the matching key.
+     * Served from memory without touching the database.
+     *
+     * @param prefix The case-insensitive prefix; null or empty lists every user.
+     * @param cursor Cursor returned by the previous page; may be null.
+     * @param limit  The maximum number of users to return.
+     * @return A page of users with a cursor to the next page.
+     */
+    UserDirectoryPageDto search(String prefix, String cursor, int limit);
+
+    /**
+     * Lists every user in the directory, ordered by username.
+     *
+     * @return All user profiles.
+     */
+    List<UserProfileDto> getAll();
+
+    /**
+     * Adds or replaces a user in the directory.
+     *
+     * @param user The user as just written.
+     */
+    void upsert(User user);
+
+    /**
+     * Removes a user from the directory.
+     *
+     * @param userId The ID of the user.
+     */
+    void remove(Long userId);
+}
@@ -11,6 +11,7 @@ public interface UserService {
 
     /**
      * Fetches the User entity based on UserDetails.
+     * For principals resolved from a JWT this is a detached snapshot and runs no query.
      *
      * @param userDetails The authenticated user's details.
      * @return The User entity.
@@ -25,6 +26,11 @@ public interface UserService {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Lists every user with their basic information, ordered by username.
+     *
+     * @return List of user profiles.
+     */
     List<UserProfileDto> getAllUsers();
 
     /**
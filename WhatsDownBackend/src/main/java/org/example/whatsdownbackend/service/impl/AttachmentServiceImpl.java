@@ -1,15 +1,22 @@
 package org.example.whatsdownbackend.service.impl;
 
+import org.example.whatsdownbackend.dto.AttachmentDownload;
 import org.example.whatsdownbackend.dto.AttachmentDto;
 import org.example.whatsdownbackend.entity.Attachment;
+import org.example.whatsdownbackend.entity.AttachmentBlob;
 import org.example.whatsdownbackend.entity.Message;
 import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.event.AttachmentStoredEvent;
 import org.example.whatsdownbackend.mapper.AttachmentMapper;
 import org.example.whatsdownbackend.repository.AttachmentRepository;
 import org.example.whatsdownbackend.repository.MessageRepository;
 import org.example.whatsdownbackend.service.AttachmentService;
+import org.example.whatsdownbackend.service.AttachmentStorageService;
+import org.example.whatsdownbackend.service.ChatMembershipService;
+import org.example.whatsdownbackend.util.AttachmentVariant;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,8 +24,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.NoSuchElementException;
-import java.util.UUID;
 
 @Service
 public class AttachmentServiceImpl implements AttachmentService {
@@ -32,8 +39,14 @@ public class AttachmentServiceImpl implements AttachmentService {
     @Autowired
     private AttachmentMapper attachmentMapper;
 
-    @Value("${attachment.storage.path}")
-    private String attachmentStoragePath;
+    @Autowired
+    private ChatMembershipService chatMembershipService;
+
+    @Autowired
+    private AttachmentStorageService attachmentStorageService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * {@inheritDoc}
@@ -44,37 +57,30 @@ public class AttachmentServiceImpl implements AttachmentService {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new NoSuchElementException("Message not found with ID: " + messageId));
 
-        if (!message.getChat().getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
-        }
+        chatMembershipService.checkMembership(message.getChat().getId(), currentUser);
 
         // Check if user has permission to upload attachments
         if (!hasPermission(currentUser, "UPLOAD_ATTACHMENT")) {
             throw new AccessDeniedException("You do not have permission to upload attachments.");
         }
 
-        try {
-            // Ensure the storage directory exists
-            Path storageDir = Paths.get(attachmentStoragePath);
-            if (!Files.exists(storageDir)) {
-                Files.createDirectories(storageDir);
-            }
-
-            // Generate a unique file name to prevent collisions
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path filePath = storageDir.resolve(fileName);
-
-            // Save the file to the filesystem
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream content = file.getInputStream()) {
+            // Identical content is stored once and shared
+            AttachmentBlob blob = attachmentStorageService.store(content);
 
             // Create and save the attachment entity
             Attachment attachment = new Attachment();
             attachment.setFileName(file.getOriginalFilename());
             attachment.setFileType(file.getContentType());
-            attachment.setFileUrl(filePath.toString());
+            attachment.setFileUrl(attachmentStorageService.blobPath(blob.getHash()).toString());
+            attachment.setBlob(blob);
             attachment.setMessage(message);
 
             Attachment savedAttachment = attachmentRepository.save(attachment);
+
+            // Thumbnails and previews are generated once this transaction commits
+            eventPublisher.publishEvent(new AttachmentStoredEvent(savedAttachment.getId(),
+                    savedAttachment.getFileUrl(), savedAttachment.getFileType()));
             return attachmentMapper.toDto(savedAttachment);
 
         } catch (IOException e) {
@@ -87,13 +93,11 @@ public class AttachmentServiceImpl implements AttachmentService {
      */
     @Override
     @Transactional(readOnly = true)
-    public byte[] downloadAttachment(Long attachmentId, User currentUser) {
-        Attachment attachment = attachmentRepository.findById(attachmentId)
+    public AttachmentDownload downloadAttachment(Long attachmentId, AttachmentVariant variant, User currentUser) {
+        AttachmentRepository.FileView attachment = attachmentRepository.findFileViewById(attachmentId)
                 .orElseThrow(() -> new NoSuchElementException("Attachment not found with ID: " + attachmentId));
 
-        if (!attachment.getMessage().getChat().getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
-        }
+        chatMembershipService.checkMembership(attachment.getChatId(), currentUser);
 
         // Check if user has permission to download attachments
         if (!hasPermission(currentUser, "DOWNLOAD_ATTACHMENT")) {
@@ -101,8 +105,26 @@ public class AttachmentServiceImpl implements AttachmentService {
         }
 
         Path filePath = Paths.get(attachment.getFileUrl());
+        String fileName = attachment.getFileName();
+        String fileType = attachment.getFileType();
+        if (variant != null) {
+            filePath = variant.pathFor(filePath);
+            fileName = variant.fileNameFor(fileName);
+            fileType = "image/jpeg";
+        }
+
         try {
-            return Files.readAllBytes(filePath);
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            // Stored files are never rewritten in place, so ID, size and mtime identify the content
+            String eTag = "\"" + attachment.getId() + "-" + attributes.size() + "-" + lastModified + "\"";
+            return new AttachmentDownload(new FileSystemResource(filePath), fileName, fileType, lastModified, eTag);
+        } catch (NoSuchFileException e) {
+            if (variant != null) {
+                // Not an image, or still being generated
+                throw new NoSuchElementException("Variant " + variant + " is not available for attachment ID: " + attachmentId);
+            }
+            throw new NoSuchElementException("Attachment file is missing for ID: " + attachmentId);
         } catch (IOException e) {
             throw new RuntimeException("Failed to download attachment.", e);
         }
@@ -117,9 +139,7 @@ public class AttachmentServiceImpl implements AttachmentService {
         Attachment attachment = attachmentRepository.findById(attachmentId)
                 .orElseThrow(() -> new NoSuchElementException("Attachment not found with ID: " + attachmentId));
 
-        if (!attachment.getMessage().getChat().getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
-        }
+        chatMembershipService.checkMembership(attachment.getMessage().getChat().getId(), currentUser);
 
         return attachmentMapper.toDto(attachment);
     }
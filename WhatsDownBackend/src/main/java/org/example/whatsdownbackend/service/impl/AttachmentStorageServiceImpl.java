@@ -0,0 +1,168 @@
+package org.example.whatsdownbackend.service.impl;
+
+import org.example.whatsdownbackend.entity.AttachmentBlob;
+import org.example.whatsdownbackend.repository.AttachmentBlobRepository;
+import org.example.whatsdownbackend.service.AttachmentStorageService;
+import org.example.whatsdownbackend.util.AttachmentVariant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+@Service
+public class AttachmentStorageServiceImpl implements AttachmentStorageService {
+
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Value("${attachment.storage.path}")
+    private String attachmentStoragePath;
+
+    @Value("${app.attachments.gc.grace-period-ms:3600000}")
+    private long gcGracePeriodMs;
+
+    // Blob bookkeeping commits on its own: a reference left over from a rolled back caller
+    // is corrected by the next garbage collection
+    private final TransactionTemplate transactionTemplate;
+
+    public AttachmentStorageServiceImpl(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AttachmentBlob store(InputStream content) {
+        MessageDigest digest = sha256();
+        try {
+            Path tempFile = Files.createTempFile(tempDirectory(), "blob-", ".tmp");
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            return acquire(HexFormat.of().formatHex(digest.digest()), tempFile, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store attachment.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AttachmentBlob storeFile(Path file) {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            // One sequential read to hash; a duplicate then costs no write at all
+            in.transferTo(OutputStream.nullOutputStream());
+            return acquire(HexFormat.of().formatHex(digest.digest()), file, Files.size(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store attachment.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Path blobPath(String hash) {
+        // Two levels of 256-way fan-out keep directories small even with hundreds of millions of blobs
+        return blobDirectory().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Scheduled(initialDelayString = "${app.attachments.gc.interval-ms:3600000}",
+            fixedDelayString = "${app.attachments.gc.interval-ms:3600000}")
+    public void collectGarbage() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            attachmentBlobRepository.recomputeRefCounts();
+            attachmentBlobRepository.clearReferencedOrphans();
+            attachmentBlobRepository.markOrphans(now);
+        });
+
+        for (String hash : attachmentBlobRepository.findOrphanHashes(now.minus(Duration.ofMillis(gcGracePeriodMs)))) {
+            transactionTemplate.executeWithoutResult(status -> attachmentBlobRepository.findByHashForUpdate(hash)
+                    .filter(blob -> blob.getRefCount() == 0)
+                    .ifPresent(blob -> {
+                        // The row lock makes a concurrent upload of this content wait, then store a fresh copy
+                        try {
+                            Path path = blobPath(hash);
+                            for (AttachmentVariant variant : AttachmentVariant.values()) {
+                                Files.deleteIfExists(variant.pathFor(path));
+                            }
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("Failed to delete blob " + hash, e);
+                        }
+                        attachmentBlobRepository.delete(blob);
+                    }));
+        }
+    }
+
+    private AttachmentBlob acquire(String hash, Path source, long size) {
+        try {
+            return transactionTemplate.execute(status -> acquireOnce(hash, source, size));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent upload of the same content inserted the blob first; reference that one
+            return transactionTemplate.execute(status -> acquireOnce(hash, source, size));
+        }
+    }
+
+    private AttachmentBlob acquireOnce(String hash, Path source, long size) {
+        try {
+            if (attachmentBlobRepository.incrementRefCount(hash) == 1) {
+                Files.deleteIfExists(source);
+                return attachmentBlobRepository.findById(hash).orElseThrow();
+            }
+
+            Path target = blobPath(hash);
+            Files.createDirectories(target.getParent());
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return attachmentBlobRepository.saveAndFlush(new AttachmentBlob(hash, size, 1, null, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store blob " + hash, e);
+        }
+    }
+
+    private Path blobDirectory() {
+        return Paths.get(attachmentStoragePath, "blobs");
+    }
+
+    private Path tempDirectory() throws IOException {
+        // Same file system as the blobs, so moving a new blob into place is a rename
+        return Files.createDirectories(Paths.get(attachmentStoragePath, ".uploads"));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.whatsdownbackend.service.impl;
+
+import org.example.whatsdownbackend.config.AsyncConfig;
+import org.example.whatsdownbackend.event.AttachmentStoredEvent;
+import org.example.whatsdownbackend.service.AttachmentVariantService;
+import org.example.whatsdownbackend.util.AttachmentVariant;
+import org.example.whatsdownbackend.util.ExifOrientation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+@Service
+public class AttachmentVariantServiceImpl implements AttachmentVariantService {
+
+    // Guards the heap against decompression bombs
+    @Value("${app.attachments.variants.max-source-pixels:100000000}")
+    private long maxSourcePixels;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Async(AsyncConfig.ATTACHMENT_VARIANT_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAttachmentStored(AttachmentStoredEvent event) {
+        if (event.getFileType() == null || !event.getFileType().startsWith("image/")) {
+            return;
+        }
+        try {
+            generateVariants(Paths.get(event.getFileUrl()));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to generate variants for attachment " + event.getAttachmentId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void generateVariants(Path source) {
+        List<AttachmentVariant> missing = Arrays.stream(AttachmentVariant.values())
+                .filter(variant -> !Files.exists(variant.pathFor(source)))
+                .toList();
+        if (missing.isEmpty()) {
+            return; // Same content was uploaded before
+        }
+
+        int largest = missing.stream().mapToInt(AttachmentVariant::getMaxDimension).max().getAsInt();
+        BufferedImage image = decode(source, largest);
+        if (image == null) {
+            return;
+        }
+        for (AttachmentVariant variant : missing) {
+            writeJpeg(resize(image, variant.getMaxDimension()), variant.getQuality(), variant.pathFor(source));
+        }
+    }
+
+    /**
+     * Decodes an image without its metadata, subsampling sources far larger than the largest variant
+     * so the decoded raster stays small, and turns it upright per its EXIF orientation.
+     *
+     * @return The image, or null if ImageIO cannot read it or it is too large.
+     */
+    private BufferedImage decode(Path source, int targetDimension) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // Metadata (EXIF, XMP, ICC comments) is never read, so none of it reaches the variants;
+                // only the orientation is taken from the EXIF segment and baked into the pixels
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    System.err.println("Skipping variants for " + source + ": " + width + "x" + height + " exceeds the pixel limit");
+                    return null;
+                }
+
+                // Keep twice the target resolution so the final downscale still has pixels to average
+                int subsampling = Math.max(1, Math.max(width, height) / (targetDimension * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return ExifOrientation.apply(reader.read(0, param), ExifOrientation.read(source));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode " + source, e);
+        }
+    }
+
+    /**
+     * Scales an image to fit within a square, never upscaling. Large reductions are done in halving
+     * steps, since a single bilinear pass over a large ratio skips pixels and aliases.
+     * The result is opaque RGB: transparent areas become white.
+     */
+    private static BufferedImage resize(BufferedImage source, int maxDimension) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, float quality, Path target) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(tempFile.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            // Readers only ever see a complete variant
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (tempFile != null) {
+                    Files.deleteIfExists(tempFile);
+                }
+            } catch (IOException ignored) {
+                // Best effort
+            }
+            throw new UncheckedIOException("Failed to write variant " + target, e);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.whatsdownbackend.service.impl;
+
+import org.example.whatsdownbackend.entity.ChatUserId;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.repository.ChatRepository;
+import org.example.whatsdownbackend.repository.ChatUserRepository;
+import org.example.whatsdownbackend.service.ChatMembershipService;
+import org.example.whatsdownbackend.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.NoSuchElementException;
+
+@Service
+public class ChatMembershipServiceImpl implements ChatMembershipService {
+
+    @Autowired
+    private ChatUserRepository chatUserRepository;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    private final BoundedCache<ChatUserId, Boolean> membershipCache;
+
+    public ChatMembershipServiceImpl(
+            @Value("${app.membership.cache.max-size:100000}") int maxSize,
+            @Value("${app.membership.cache.ttl-ms:60000}") long ttlMs
+    ) {
+        this.membershipCache = new BoundedCache<>(maxSize, ttlMs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMember(Long chatId, Long userId) {
+        if (chatId == null || userId == null) {
+            return false;
+        }
+        return membershipCache.computeIfAbsent(new ChatUserId(chatId, userId),
+                id -> chatUserRepository.existsMembership(id.getChatId(), id.getUserId()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkMembership(Long chatId, User user) {
+        if (isMember(chatId, user.getId())) {
+            return;
+        }
+
+        // Only the failure path pays for telling a missing chat apart from a foreign one
+        if (!chatRepository.existsById(chatId)) {
+            throw new NoSuchElementException("Chat not found with ID: " + chatId);
+        }
+        throw new AccessDeniedException("You are not a member of this chat.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void evictMembership(Long chatId, Long userId) {
+        ChatUserId id = new ChatUserId(chatId, userId);
+        membershipCache.invalidate(id);
+        afterCommit(() -> membershipCache.invalidate(id));
+    }
+
+    /**
+     * Runs the action again once the surrounding transaction commits, so a concurrent
+     * reader cannot re-cache the membership state from before the change.
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
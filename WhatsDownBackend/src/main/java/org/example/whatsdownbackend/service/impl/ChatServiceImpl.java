@@ -2,6 +2,7 @@ package org.example.whatsdownbackend.service.impl;
 
 import org.example.whatsdownbackend.dto.AddUsersRequest;
 import org.example.whatsdownbackend.dto.ChatDto;
+import org.example.whatsdownbackend.dto.ChatSummaryDto;
 import org.example.whatsdownbackend.dto.CreateChatRequest;
 import org.example.whatsdownbackend.entity.*;
 import org.example.whatsdownbackend.mapper.ChatMapper;
@@ -9,8 +10,10 @@ import org.example.whatsdownbackend.repository.ChatRepository;
 import org.example.whatsdownbackend.repository.ChatUserRepository;
 import org.example.whatsdownbackend.repository.UserRepository;
 import org.example.whatsdownbackend.repository.GroupRoleRepository;
+import org.example.whatsdownbackend.service.ChatMembershipService;
 import org.example.whatsdownbackend.service.ChatService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -37,6 +40,12 @@ public class ChatServiceImpl implements ChatService {
     @Autowired
     private ChatMapper chatMapper;
 
+    @Autowired
+    private ChatMembershipService chatMembershipService;
+
+    @Value("${app.chats.summary.preview-length:100}")
+    private int previewLength;
+
     /**
      * {@inheritDoc}
      */
@@ -98,8 +107,20 @@ public class ChatServiceImpl implements ChatService {
     @PreAuthorize("hasAuthority('VIEW_MESSAGES')")
     public List<ChatDto> getUserChats(User currentUser) {
         List<Chat> chats = chatRepository.findAllByUser(currentUser);
+        if (chats.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Member IDs straight from the join table instead of initializing every chat's users
+        Map<Long, List<Long>> memberIds = new HashMap<>();
+        List<Long> chatIds = chats.stream().map(Chat::getId).collect(Collectors.toList());
+        for (Object[] row : chatUserRepository.findMemberIdsByChatIds(chatIds)) {
+            memberIds.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+        }
+
         return chats.stream()
-                .map(chatMapper::toDto)
+                .map(chat -> new ChatDto(chat.getId(), chat.getIsGroup(), chat.getName(),
+                        memberIds.getOrDefault(chat.getId(), new ArrayList<>()), null))
                 .collect(Collectors.toList());
     }
 
@@ -109,15 +130,35 @@ public class ChatServiceImpl implements ChatService {
     @Override
     @Transactional(readOnly = true)
     @PreAuthorize("hasAuthority('VIEW_MESSAGES')")
-    public ChatDto getChatDetails(Long chatId, User currentUser) {
+    public List<ChatSummaryDto> getUserChatSummaries(User currentUser) {
+        return chatRepository.findChatSummaries(currentUser.getId(), previewLength).stream()
+                .map(row -> new ChatSummaryDto(
+                        row.getId(),
+                        row.getIsGroup(),
+                        row.getName(),
+                        row.getMemberCount(),
+                        row.getLastMessageId(),
+                        row.getLastMessagePreview(),
+                        row.getLastMessageSenderId(),
+                        row.getLastMessageSender(),
+                        row.getLastMessageTime(),
+                        row.getUnreadCount()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAuthority('VIEW_MESSAGES')")
+    public ChatDto getChatDetails(Long chatId, boolean includeMessages, User currentUser) {
         Chat chat = chatRepository.findById(chatId)
                 .orElseThrow(() -> new NoSuchElementException("Chat not found with ID: " + chatId));
 
-        if (!chat.getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
-        }
+        chatMembershipService.checkMembership(chatId, currentUser);
 
-        return chatMapper.toDto(chat);
+        return includeMessages ? chatMapper.toDtoWithMessages(chat) : chatMapper.toDto(chat);
     }
 
     /**
@@ -153,6 +194,7 @@ public class ChatServiceImpl implements ChatService {
 
         chat.getUsers().addAll(usersToAdd);
         Chat updatedChat = chatRepository.save(chat);
+        usersToAdd.forEach(user -> chatMembershipService.evictMembership(chatId, user.getId()));
         return chatMapper.toDto(updatedChat);
     }
 
@@ -180,6 +222,7 @@ public class ChatServiceImpl implements ChatService {
 
         chat.getUsers().remove(userToRemove);
         Chat updatedChat = chatRepository.save(chat);
+        chatMembershipService.evictMembership(chatId, userId);
         return chatMapper.toDto(updatedChat);
     }
 
@@ -0,0 +1,276 @@
+package org.example.whatsdownbackend.service.impl;
+
+import org.example.whatsdownbackend.dto.AttachmentDto;
+import org.example.whatsdownbackend.dto.CreateUploadRequest;
+import org.example.whatsdownbackend.dto.UploadSessionDto;
+import org.example.whatsdownbackend.entity.Attachment;
+import org.example.whatsdownbackend.entity.AttachmentBlob;
+import org.example.whatsdownbackend.entity.Message;
+import org.example.whatsdownbackend.entity.UploadSession;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.event.AttachmentStoredEvent;
+import org.example.whatsdownbackend.mapper.AttachmentMapper;
+import org.example.whatsdownbackend.repository.AttachmentRepository;
+import org.example.whatsdownbackend.repository.MessageRepository;
+import org.example.whatsdownbackend.repository.UploadSessionRepository;
+import org.example.whatsdownbackend.service.AttachmentStorageService;
+import org.example.whatsdownbackend.service.ChatMembershipService;
+import org.example.whatsdownbackend.service.ChunkedUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ChunkedUploadServiceImpl implements ChunkedUploadService {
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private AttachmentMapper attachmentMapper;
+
+    @Autowired
+    private ChatMembershipService chatMembershipService;
+
+    @Autowired
+    private AttachmentStorageService attachmentStorageService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${attachment.storage.path}")
+    private String attachmentStoragePath;
+
+    @Value("${app.uploads.max-size:2147483648}")
+    private long maxUploadSize;
+
+    @Value("${app.uploads.expiry-ms:86400000}")
+    private long uploadExpiryMs;
+
+    // Serializes writes to the same upload; partial files live on this node's disk
+    private final Map<String, Object> uploadLocks = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public UploadSessionDto createUpload(CreateUploadRequest createUploadRequest, User currentUser) {
+        if (createUploadRequest.getTotalSize() > maxUploadSize) {
+            throw new IllegalArgumentException("File exceeds the maximum upload size of " + maxUploadSize + " bytes.");
+        }
+
+        Message message = messageRepository.findById(createUploadRequest.getMessageId())
+                .orElseThrow(() -> new NoSuchElementException("Message not found with ID: " + createUploadRequest.getMessageId()));
+        chatMembershipService.checkMembership(message.getChat().getId(), currentUser);
+
+        String uploadId = UUID.randomUUID().toString();
+        Path tempPath = uploadDirectory().resolve(uploadId + ".part");
+        try (RandomAccessFile file = new RandomAccessFile(tempPath.toFile(), "rw")) {
+            // Reserve the full size up front so chunks land in place and a full disk fails early
+            file.setLength(createUploadRequest.getTotalSize());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create upload.", e);
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(uploadId);
+        session.setMessageId(message.getId());
+        session.setUserId(currentUser.getId());
+        session.setFileName(createUploadRequest.getFileName());
+        session.setFileType(createUploadRequest.getFileType());
+        session.setTotalSize(createUploadRequest.getTotalSize());
+        session.setReceivedBytes(0);
+        session.setTempPath(tempPath.toString());
+
+        return toDto(uploadSessionRepository.save(session));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UploadSessionDto getUpload(String uploadId, User currentUser) {
+        return toDto(findOwnedSession(uploadId, currentUser));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UploadSessionDto writeChunk(String uploadId, long offset, InputStream data, User currentUser) {
+        // No transaction here: the chunk is streamed from the client and may take a while
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = findOwnedSession(uploadId, currentUser);
+            if (offset < 0 || offset > session.getReceivedBytes()) {
+                throw new IllegalArgumentException("Chunk offset " + offset + " does not match the upload progress of "
+                        + session.getReceivedBytes() + " bytes.");
+            }
+
+            long remaining = session.getTotalSize() - offset;
+            long written = 0;
+            IOException failure = null;
+            boolean oversized = false;
+            try (FileChannel channel = FileChannel.open(Paths.get(session.getTempPath()), StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(data)) {
+                try {
+                    while (written < remaining) {
+                        long transferred = channel.transferFrom(source, offset + written, remaining - written);
+                        if (transferred == 0) {
+                            break; // End of the chunk
+                        }
+                        written += transferred;
+                    }
+                    oversized = written == remaining && data.read() != -1;
+                } catch (IOException e) {
+                    failure = e; // Typically the client dropped; keep what arrived
+                } finally {
+                    // Make the bytes durable before recording them as received
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write upload chunk.", e);
+            }
+
+            long end = offset + written;
+            if (end > session.getReceivedBytes()) {
+                session.setReceivedBytes(end);
+                session = uploadSessionRepository.save(session);
+            }
+            if (failure != null) {
+                throw new RuntimeException("Upload interrupted after " + session.getReceivedBytes() + " bytes.", failure);
+            }
+            if (oversized) {
+                throw new IllegalArgumentException("Chunk exceeds the declared upload size of " + session.getTotalSize() + " bytes.");
+            }
+            return toDto(session);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public AttachmentDto completeUpload(String uploadId, User currentUser) {
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = findOwnedSession(uploadId, currentUser);
+            if (session.getReceivedBytes() < session.getTotalSize()) {
+                throw new IllegalArgumentException("Upload is incomplete: " + session.getReceivedBytes() + " of "
+                        + session.getTotalSize() + " bytes received.");
+            }
+
+            Message message = messageRepository.findById(session.getMessageId())
+                    .orElseThrow(() -> new NoSuchElementException("Message not found with ID: " + session.getMessageId()));
+            chatMembershipService.checkMembership(message.getChat().getId(), currentUser);
+
+            // Moved into the content-addressed store by a rename, or dropped if the content is already stored
+            AttachmentBlob blob = attachmentStorageService.storeFile(Paths.get(session.getTempPath()));
+
+            Attachment attachment = new Attachment();
+            // Strip any directory part the client may have sent along with the name
+            attachment.setFileName(Paths.get(session.getFileName()).getFileName().toString());
+            attachment.setFileType(session.getFileType());
+            attachment.setFileUrl(attachmentStorageService.blobPath(blob.getHash()).toString());
+            attachment.setBlob(blob);
+            attachment.setMessage(message);
+            Attachment savedAttachment = attachmentRepository.save(attachment);
+            eventPublisher.publishEvent(new AttachmentStoredEvent(savedAttachment.getId(),
+                    savedAttachment.getFileUrl(), savedAttachment.getFileType()));
+
+            uploadSessionRepository.delete(session);
+            uploadLocks.remove(uploadId);
+            return attachmentMapper.toDto(savedAttachment);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void cancelUpload(String uploadId, User currentUser) {
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = findOwnedSession(uploadId, currentUser);
+            discard(session);
+        }
+    }
+
+    /**
+     * Deletes uploads that have received no data within the expiry period.
+     */
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-interval-ms:3600000}")
+    public void expireAbandonedUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(uploadExpiryMs));
+        for (UploadSession session : uploadSessionRepository.findByUpdatedAtBefore(cutoff)) {
+            synchronized (lockFor(session.getId())) {
+                discard(session);
+            }
+        }
+    }
+
+    private void discard(UploadSession session) {
+        try {
+            Files.deleteIfExists(Paths.get(session.getTempPath()));
+        } catch (IOException e) {
+            System.err.println("Failed to delete partial upload " + session.getTempPath() + ": " + e.getMessage());
+        }
+        uploadSessionRepository.delete(session);
+        uploadLocks.remove(session.getId());
+    }
+
+    private UploadSession findOwnedSession(String uploadId, User currentUser) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new NoSuchElementException("Upload not found with ID: " + uploadId));
+        if (!session.getUserId().equals(currentUser.getId())) {
+            throw new AccessDeniedException("You can only access your own uploads.");
+        }
+        return session;
+    }
+
+    private Object lockFor(String uploadId) {
+        return uploadLocks.computeIfAbsent(uploadId, id -> new Object());
+    }
+
+    private Path uploadDirectory() {
+        // Inside the storage directory so completing an upload is a rename on the same file system
+        Path directory = Paths.get(attachmentStoragePath, ".uploads");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create the upload directory.", e);
+        }
+        return directory;
+    }
+
+    private UploadSessionDto toDto(UploadSession session) {
+        return new UploadSessionDto(session.getId(), session.getMessageId(), session.getFileName(),
+                session.getTotalSize(), session.getReceivedBytes(),
+                session.getReceivedBytes() == session.getTotalSize());
+    }
+}
@@ -0,0 +1,364 @@
+package org.example.whatsdownbackend.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.example.whatsdownbackend.dto.MessageSearchHitDto;
+import org.example.whatsdownbackend.dto.MessageSearchResultDto;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.event.MessageCreatedEvent;
+import org.example.whatsdownbackend.repository.ChatUserRepository;
+import org.example.whatsdownbackend.service.ChatMembershipService;
+import org.example.whatsdownbackend.service.MessageSearchService;
+import org.example.whatsdownbackend.util.MessageCursor;
+import org.example.whatsdownbackend.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Full-text search over message content, backed by a Lucene index on local disk.
+ * <p>
+ * Every node polls the messages table by insert time ({@code created_at}, set by the database) and
+ * indexes what it has not seen, so messages written on other nodes are found too; messages written
+ * on this node are also indexed straight away. The poll does not go by ID: write-behind issues IDs
+ * before the messages wait in its queue, so a row can commit long after its ID's time. A row still
+ * commits after its insert, so the poll re-reads the rows inserted within the last
+ * {@code app.search.poll-lag-ms} and skips those it has indexed. The insert time up to which
+ * everything is indexed is stored with each commit, so on startup only the messages written since
+ * then are read back.
+ */
+@Service
+public class MessageSearchServiceImpl implements MessageSearchService {
+
+    private static final int MAX_LIMIT = 50;
+    private static final int REINDEX_BATCH_SIZE = 1000;
+    private static final String INDEXED_THROUGH_KEY = "indexedThroughCreatedAt";
+    private static final String LEGACY_INDEXED_THROUGH_ID_KEY = "maxMessageId";
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String F_ID = "id";
+    private static final String F_ID_TERM = "idTerm";
+    private static final String F_CHAT_ID = "chatId";
+    private static final String F_SENDER_ID = "senderId";
+    private static final String F_SENDER_USERNAME = "senderUsername";
+    private static final String F_TIMESTAMP = "timestamp";
+    private static final String F_CONTENT = "content";
+
+    // Offsets in the postings let the highlighter skip re-analyzing the stored text
+    private static final FieldType CONTENT_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        CONTENT_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        CONTENT_TYPE.freeze();
+    }
+
+    private static final String REINDEX_SQL =
+            "SELECT m.id, m.chat_id, m.sender_id, u.username, m.content, m.timestamp, m.created_at " +
+            "FROM messages m LEFT JOIN users u ON u.id = m.sender_id " +
+            "WHERE m.created_at > ? OR (m.created_at = ? AND m.id > ?) " +
+            "ORDER BY m.created_at, m.id LIMIT ?";
+
+    // The database's clock, which also sets created_at
+    private static final String NOW_SQL = "SELECT CURRENT_TIMESTAMP(6)";
+
+    @Autowired
+    private ChatUserRepository chatUserRepository;
+
+    @Autowired
+    private ChatMembershipService chatMembershipService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Path indexPath;
+    private final long pollLagMs;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private volatile LocalDateTime indexedThrough = BEGINNING; // Every message inserted up to then is indexed
+    // Indexed messages a poll may read again, with the System.nanoTime() they were indexed at
+    private final Map<Long, Long> indexedAhead = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    public MessageSearchServiceImpl(
+            @Value("${app.search.index-path:search-index}") String indexPath,
+            @Value("${app.search.poll-lag-ms:5000}") long pollLagMs
+    ) {
+        this.indexPath = Paths.get(indexPath).toAbsolutePath().normalize();
+        this.pollLagMs = pollLagMs;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(indexPath);
+        directory = FSDirectory.open(indexPath);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+
+        if (DirectoryReader.indexExists(directory)) {
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                Map<String, String> userData = reader.getIndexCommit().getUserData();
+                String value = userData.get(INDEXED_THROUGH_KEY);
+                String legacyId = userData.get(LEGACY_INDEXED_THROUGH_ID_KEY);
+                if (value != null) {
+                    indexedThrough = LocalDateTime.parse(value);
+                } else if (legacyId != null) {
+                    // Indexes committed while the poll went by ID stored an ID; created_at was backfilled
+                    // from the send time, so start from the ID's time, less the lag
+                    Instant committedAt = SnowflakeIdGenerator.timestampOf(Long.parseLong(legacyId));
+                    indexedThrough = LocalDateTime.ofInstant(committedAt.minusMillis(pollLagMs), ZoneId.systemDefault());
+                }
+            }
+        }
+        // The first poll catches up on messages written while the index was closed
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MessageSearchResultDto search(String query, Long chatId, String cursor, int limit, User currentUser) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty.");
+        }
+
+        List<Long> chatIds;
+        if (chatId != null) {
+            chatMembershipService.checkMembership(chatId, currentUser);
+            chatIds = List.of(chatId);
+        } else {
+            chatIds = chatUserRepository.findChatIdsByUserId(currentUser.getId());
+        }
+        if (chatIds.isEmpty()) {
+            return new MessageSearchResultDto(new ArrayList<>(), null, false);
+        }
+
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, F_CONTENT);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query textQuery = parser.parse(query);
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(textQuery, BooleanClause.Occur.MUST)
+                .add(LongPoint.newSetQuery(F_CHAT_ID, chatIds), BooleanClause.Occur.FILTER);
+        if (cursor != null) {
+            // Keyset paging on the message ID: stable while new messages are being indexed
+            long before = MessageCursor.decode(cursor);
+            builder.add(LongPoint.newRangeQuery(F_ID, Long.MIN_VALUE, before - 1), BooleanClause.Occur.FILTER);
+        }
+        Query searchQuery = builder.build();
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Sort newestFirst = new Sort(new SortField(F_ID, SortField.Type.LONG, true));
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopFieldDocs topDocs = searcher.search(searchQuery, pageSize + 1, newestFirst);
+                boolean hasNext = topDocs.scoreDocs.length > pageSize;
+                ScoreDoc[] page = hasNext ? Arrays.copyOf(topDocs.scoreDocs, pageSize) : topDocs.scoreDocs;
+
+                UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                        .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", " … ", false))
+                        .build();
+                String[] snippets = highlighter.highlight(F_CONTENT, textQuery,
+                        new TopDocs(topDocs.totalHits, page), 2);
+
+                StoredFields storedFields = searcher.storedFields();
+                List<MessageSearchHitDto> hits = new ArrayList<>(page.length);
+                for (int i = 0; i < page.length; i++) {
+                    Document doc = storedFields.document(page[i].doc);
+                    IndexableField senderId = doc.getField(F_SENDER_ID);
+                    hits.add(new MessageSearchHitDto(
+                            doc.getField(F_ID).numericValue().longValue(),
+                            doc.getField(F_CHAT_ID).numericValue().longValue(),
+                            senderId != null ? senderId.numericValue().longValue() : null,
+                            doc.get(F_SENDER_USERNAME),
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(
+                                    doc.getField(F_TIMESTAMP).numericValue().longValue()), ZoneId.systemDefault()),
+                            snippets[i] != null ? snippets[i] : doc.get(F_CONTENT)));
+                }
+
+                String nextCursor = hasNext ? MessageCursor.encode(hits.get(hits.size() - 1).getMessageId()) : null;
+                return new MessageSearchResultDto(hits, nextCursor, hasNext);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to search messages", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageCreated(MessageCreatedEvent event) {
+        try {
+            index(event.getMessageId(), event.getChatId(), event.getSenderId(), event.getSenderUsername(),
+                    event.getContent(), event.getTimestamp());
+            // The row was inserted just now, so the next polls read it again
+            indexedAhead.put(event.getMessageId(), System.nanoTime());
+        } catch (IOException | RuntimeException e) {
+            // The next rebuild picks the message up
+            System.err.println("Failed to index message " + event.getMessageId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rebuildIndex() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("A search index rebuild is already running.");
+        }
+        Thread rebuild = new Thread(() -> {
+            try {
+                synchronized (this) {
+                    writer.deleteAll();
+                    indexedThrough = BEGINNING;
+                    indexedAhead.clear();
+                }
+                indexNewMessages();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Search index rebuild failed: " + e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+        }, "message-search-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.refresh-interval-ms:1000}")
+    public void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.commit-interval-ms:30000}")
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.setLiveCommitData(Map.of(INDEXED_THROUGH_KEY, indexedThrough.toString()).entrySet());
+            writer.commit();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.poll-interval-ms:1000}")
+    public void pollNewMessages() {
+        indexNewMessages();
+    }
+
+    /**
+     * Reads messages inserted after the indexed-through time back from the database in keyset batches
+     * and indexes those not indexed yet, then moves the indexed-through time up to the poll lag.
+     */
+    private synchronized void indexNewMessages() {
+        LocalDateTime lastCreatedAt = indexedThrough;
+        long lastId = Long.MAX_VALUE;
+        try {
+            // Rows inserted before the lag have committed by the time this poll reads them
+            LocalDateTime settled = jdbcTemplate.queryForObject(NOW_SQL, Timestamp.class).toLocalDateTime()
+                    .minus(Duration.ofMillis(pollLagMs));
+            while (true) {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(REINDEX_SQL,
+                        Timestamp.valueOf(lastCreatedAt), Timestamp.valueOf(lastCreatedAt), lastId, REINDEX_BATCH_SIZE);
+                for (Map<String, Object> row : rows) {
+                    lastId = ((Number) row.get("id")).longValue();
+                    lastCreatedAt = ((Timestamp) row.get("created_at")).toLocalDateTime();
+                    if (indexedAhead.containsKey(lastId)) {
+                        continue;
+                    }
+                    Number senderId = (Number) row.get("sender_id");
+                    Timestamp timestamp = (Timestamp) row.get("timestamp");
+                    index(lastId,
+                            ((Number) row.get("chat_id")).longValue(),
+                            senderId != null ? senderId.longValue() : null,
+                            (String) row.get("username"),
+                            (String) row.get("content"),
+                            timestamp != null ? timestamp.toLocalDateTime() : null);
+                    if (lastCreatedAt.isAfter(settled)) {
+                        indexedAhead.put(lastId, System.nanoTime());
+                    }
+                }
+                if (rows.size() < REINDEX_BATCH_SIZE) {
+                    break;
+                }
+            }
+            if (settled.isAfter(indexedThrough)) {
+                indexedThrough = settled;
+            }
+            // By now the poll has moved past whatever was indexed more than twice the lag ago
+            long expired = System.nanoTime() - 2 * TimeUnit.MILLISECONDS.toNanos(pollLagMs);
+            indexedAhead.values().removeIf(indexedAt -> indexedAt - expired < 0);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to index messages inserted after " + lastCreatedAt + ": " + e.getMessage());
+        }
+    }
+
+    private void index(Long messageId, Long chatId, Long senderId, String senderUsername,
+                       String content, LocalDateTime timestamp) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(F_ID_TERM, Long.toString(messageId), Field.Store.NO));
+        doc.add(new LongPoint(F_ID, messageId));
+        doc.add(new NumericDocValuesField(F_ID, messageId));
+        doc.add(new StoredField(F_ID, messageId));
+        doc.add(new LongPoint(F_CHAT_ID, chatId));
+        doc.add(new StoredField(F_CHAT_ID, chatId));
+        if (senderId != null) {
+            doc.add(new StoredField(F_SENDER_ID, senderId));
+        }
+        if (senderUsername != null) {
+            doc.add(new StoredField(F_SENDER_USERNAME, senderUsername));
+        }
+        LocalDateTime time = timestamp != null ? timestamp : LocalDateTime.now();
+        doc.add(new StoredField(F_TIMESTAMP, time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        doc.add(new Field(F_CONTENT, content != null ? content : "", CONTENT_TYPE));
+
+        // Replacing by ID keeps polls, rebuilds and live inserts from indexing a message twice
+        writer.updateDocument(new Term(F_ID_TERM, Long.toString(messageId)), doc);
+    }
+}
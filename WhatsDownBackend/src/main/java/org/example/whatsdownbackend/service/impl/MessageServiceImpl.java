@@ -3,15 +3,21 @@ package org.example.whatsdownbackend.service.impl;
 import org.example.whatsdownbackend.dto.ChatMessage;
 import org.example.whatsdownbackend.dto.MarkMessagesAsReadRequest;
 import org.example.whatsdownbackend.dto.MessageDto;
+import org.example.whatsdownbackend.dto.MessageSliceDto;
 import org.example.whatsdownbackend.dto.SendMessageRequest;
 import org.example.whatsdownbackend.entity.Chat;
 import org.example.whatsdownbackend.entity.Message;
 import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.event.MessageCreatedEvent;
 import org.example.whatsdownbackend.mapper.MessageMapper;
 import org.example.whatsdownbackend.repository.ChatRepository;
 import org.example.whatsdownbackend.repository.MessageRepository;
+import org.example.whatsdownbackend.service.ChatMembershipService;
 import org.example.whatsdownbackend.service.MessageService;
+import org.example.whatsdownbackend.service.ReadStateService;
+import org.example.whatsdownbackend.util.MessageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,11 +27,17 @@ import org.owasp.html.PolicyFactory;
 import org.owasp.html.Sanitizers;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 
 @Service
 public class MessageServiceImpl implements MessageService {
 
+    private static final int MAX_HISTORY_LIMIT = 100;
+
     @Autowired
     private ChatRepository chatRepository;
 
@@ -35,6 +47,15 @@ public class MessageServiceImpl implements MessageService {
     @Autowired
     private MessageMapper messageMapper;
 
+    @Autowired
+    private ChatMembershipService chatMembershipService;
+
+    @Autowired
+    private ReadStateService readStateService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private PolicyFactory sanitizer = Sanitizers.FORMATTING.and(Sanitizers.LINKS);
 
     /**
@@ -44,12 +65,7 @@ public class MessageServiceImpl implements MessageService {
     @Transactional
     @PreAuthorize("hasAuthority('SEND_MESSAGE')")
     public MessageDto sendMessage(SendMessageRequest sendMessageRequest, User currentUser) {
-        Chat chat = chatRepository.findById(sendMessageRequest.getChatId())
-                .orElseThrow(() -> new NoSuchElementException("Chat not found with ID: " + sendMessageRequest.getChatId()));
-
-        if (!chat.getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
-        }
+        chatMembershipService.checkMembership(sendMessageRequest.getChatId(), currentUser);
 
         // Check if user has permission to send messages
         if (!hasPermission(currentUser, "SEND_MESSAGE")) {
@@ -60,13 +76,15 @@ public class MessageServiceImpl implements MessageService {
         String sanitizedContent = sanitizer.sanitize(sendMessageRequest.getContent());
 
         Message message = new Message();
+        message.setSeq(nextSeq(sendMessageRequest.getChatId()));
         message.setContent(sanitizedContent);
         message.setTimestamp(LocalDateTime.now());
         message.setIsRead(false);
-        message.setChat(chat);
+        message.setChat(chatRepository.getReferenceById(sendMessageRequest.getChatId()));
         message.setSender(currentUser);
 
         Message savedMessage = messageRepository.save(message);
+        publishCreated(savedMessage, sendMessageRequest.getChatId(), currentUser);
         return messageMapper.toDto(savedMessage);
     }
 
@@ -77,20 +95,74 @@ public class MessageServiceImpl implements MessageService {
     @Transactional(readOnly = true)
     @PreAuthorize("hasAuthority('VIEW_MESSAGES')")
     public Page<MessageDto> getMessagesForChat(Long chatId, Pageable pageable, User currentUser) {
-        Chat chat = chatRepository.findById(chatId)
-                .orElseThrow(() -> new NoSuchElementException("Chat not found with ID: " + chatId));
+        chatMembershipService.checkMembership(chatId, currentUser);
+
+        // Check if user has permission to view messages
+        if (!hasPermission(currentUser, "VIEW_MESSAGES")) {
+            throw new AccessDeniedException("You do not have permission to view messages.");
+        }
+
+        Chat chat = chatRepository.getReferenceById(chatId);
+        Page<Message> messagesPage = messageRepository.findByChatOrderByTimestampAsc(chat, pageable);
+        Page<MessageDto> dtoPage = messagesPage.map(messageMapper::toDto);
+        readStateService.applyReadFlags(chatId, dtoPage.getContent(), currentUser);
+        return dtoPage;
+    }
 
-        if (!chat.getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAuthority('VIEW_MESSAGES')")
+    public MessageSliceDto getMessageHistory(Long chatId, String before, String after, int limit, User currentUser) {
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Only one of 'before' and 'after' may be specified.");
         }
 
+        chatMembershipService.checkMembership(chatId, currentUser);
+
         // Check if user has permission to view messages
         if (!hasPermission(currentUser, "VIEW_MESSAGES")) {
             throw new AccessDeniedException("You do not have permission to view messages.");
         }
 
-        Page<Message> messagesPage = messageRepository.findByChatOrderByTimestampAsc(chat, pageable);
-        return messagesPage.map(messageMapper::toDto);
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT)));
+        List<Message> messages;
+        boolean hasOlder;
+        boolean hasNewer;
+
+        if (after != null) {
+            Slice<Message> slice = messageRepository.findByChatIdAfter(chatId, MessageCursor.decode(after), pageable);
+            messages = slice.getContent();
+            hasOlder = true;
+            hasNewer = slice.hasNext();
+        } else {
+            Slice<Message> slice = before != null
+                    ? messageRepository.findByChatIdBefore(chatId, MessageCursor.decode(before), pageable)
+                    : messageRepository.findLatestByChatId(chatId, pageable);
+            // Slices walking backwards come newest first; return them in chronological order
+            messages = new ArrayList<>(slice.getContent());
+            Collections.reverse(messages);
+            hasOlder = slice.hasNext();
+            hasNewer = before != null;
+        }
+
+        List<MessageDto> messageDtos = messages.stream()
+                .map(messageMapper::toDto)
+                .collect(Collectors.toList());
+        readStateService.applyReadFlags(chatId, messageDtos, currentUser);
+
+        if (messageDtos.isEmpty()) {
+            // Nothing past the anchor; hand the same cursor back so the client can poll again, or
+            // page forward again from where an empty page backwards ended
+            String anchor = before != null ? before : after;
+            return new MessageSliceDto(messageDtos, null, anchor, false, anchor != null);
+        }
+
+        String nextCursor = hasOlder ? MessageCursor.encode(messageDtos.get(0).getId()) : null;
+        String prevCursor = hasNewer ? MessageCursor.encode(messageDtos.get(messageDtos.size() - 1).getId()) : null;
+        return new MessageSliceDto(messageDtos, nextCursor, prevCursor, hasOlder, hasNewer);
     }
 
     /**
@@ -100,19 +172,24 @@ public class MessageServiceImpl implements MessageService {
     @Transactional
     @PreAuthorize("hasAuthority('MARK_AS_READ')")
     public void markMessagesAsRead(Long chatId, MarkMessagesAsReadRequest markMessagesAsReadRequest, User currentUser) {
-        Chat chat = chatRepository.findById(chatId)
-                .orElseThrow(() -> new NoSuchElementException("Chat not found with ID: " + chatId));
-
-        if (!chat.getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
-        }
+        chatMembershipService.checkMembership(chatId, currentUser);
 
         // Check if user has permission to mark messages as read
         if (!hasPermission(currentUser, "MARK_AS_READ")) {
             throw new AccessDeniedException("You do not have permission to mark messages as read.");
         }
 
-        messageRepository.markMessagesAsRead(markMessagesAsReadRequest.getMessageIds());
+        Long lastReadMessageId = markMessagesAsReadRequest.getLastReadMessageId();
+        if (lastReadMessageId == null && markMessagesAsReadRequest.getMessageIds() != null
+                && !markMessagesAsReadRequest.getMessageIds().isEmpty()) {
+            // Reading a message implies reading everything before it
+            lastReadMessageId = Collections.max(markMessagesAsReadRequest.getMessageIds());
+        }
+        if (lastReadMessageId == null) {
+            throw new IllegalArgumentException("Either lastReadMessageId or messageIds must be provided.");
+        }
+
+        readStateService.markReadUpTo(chatId, currentUser.getId(), lastReadMessageId);
     }
 
     /**
@@ -123,12 +200,8 @@ public class MessageServiceImpl implements MessageService {
     @PreAuthorize("hasAuthority('SEND_MESSAGE')")
     public ChatMessage processIncomingMessage(ChatMessage chatMessage, User currentUser) {
         // Validate chat existence and user membership
-        Chat chat = chatRepository.findById(chatMessage.getChatId())
-                .orElseThrow(() -> new NoSuchElementException("Chat not found with ID: " + chatMessage.getChatId()));
-
-        if (!chat.getUsers().contains(currentUser)) {
-            throw new AccessDeniedException("You are not a member of this chat.");
-        }
+        chatMembershipService.checkMembership(chatMessage.getChatId(), currentUser);
+        Chat chat = chatRepository.getReferenceById(chatMessage.getChatId());
 
         // Check if user has permission to send messages
         if (!hasPermission(currentUser, "SEND_MESSAGE")) {
@@ -137,6 +210,7 @@ public class MessageServiceImpl implements MessageService {
 
         // Create and save the message
         Message message = new Message();
+        message.setSeq(nextSeq(chat.getId()));
         message.setContent(chatMessage.getContent());
         message.setTimestamp(LocalDateTime.now());
         message.setIsRead(false);
@@ -144,19 +218,41 @@ public class MessageServiceImpl implements MessageService {
         message.setSender(currentUser);
 
         Message savedMessage = messageRepository.save(message);
+        publishCreated(savedMessage, chat.getId(), currentUser);
 
         // Map to ChatMessage DTO
         ChatMessage savedChatMessage = new ChatMessage();
         savedChatMessage.setMessageId(savedMessage.getId());
         savedChatMessage.setChatId(chat.getId());
+        savedChatMessage.setSeq(savedMessage.getSeq());
         savedChatMessage.setSenderUsername(currentUser.getUsername());
         savedChatMessage.setContent(savedMessage.getContent());
         savedChatMessage.setTimestamp(savedMessage.getTimestamp());
         savedChatMessage.setMessageType("CHAT");
+        savedChatMessage.setClientMessageId(chatMessage.getClientMessageId());
 
         return savedChatMessage;
     }
 
+    /**
+     * Reserves the chat's next sequence number. The chat row stays locked until the sending
+     * transaction commits, so concurrent senders to the same chat commit in sequence order.
+     */
+    private long nextSeq(Long chatId) {
+        if (chatRepository.advanceLastSeq(chatId, 1) == 0) {
+            throw new NoSuchElementException("Chat not found with ID: " + chatId);
+        }
+        return chatRepository.findLastSeq(chatId);
+    }
+
+    /**
+     * Announces a saved message, e.g. to the search index, once the transaction commits.
+     */
+    private void publishCreated(Message message, Long chatId, User sender) {
+        eventPublisher.publishEvent(new MessageCreatedEvent(message.getId(), chatId, sender.getId(),
+                sender.getUsername(), message.getContent(), message.getTimestamp()));
+    }
+
     /**
      * Helper method to check if a user has a specific permission.
      *
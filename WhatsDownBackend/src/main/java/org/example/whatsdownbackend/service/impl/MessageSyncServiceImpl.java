@@ -0,0 +1,97 @@
+package org.example.whatsdownbackend.service.impl;
+
+import org.example.whatsdownbackend.dto.ChatSyncDto;
+import org.example.whatsdownbackend.dto.MessageDto;
+import org.example.whatsdownbackend.dto.SyncRequest;
+import org.example.whatsdownbackend.entity.Message;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.mapper.MessageMapper;
+import org.example.whatsdownbackend.repository.MessageRepository;
+import org.example.whatsdownbackend.service.ChatMembershipService;
+import org.example.whatsdownbackend.service.MessageSyncService;
+import org.example.whatsdownbackend.service.ReadStateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class MessageSyncServiceImpl implements MessageSyncService {
+
+    @Autowired
+    private ChatMembershipService chatMembershipService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageMapper messageMapper;
+
+    @Autowired
+    private ReadStateService readStateService;
+
+    @Value("${app.messages.sync.max-chats:500}")
+    private int maxChats;
+
+    @Value("${app.messages.sync.per-chat-limit:100}")
+    private int perChatLimit;
+
+    // Across all chats of one request; chats past it are reported with hasMore and no messages
+    @Value("${app.messages.sync.max-messages:2000}")
+    private int maxMessages;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<ChatSyncDto> sync(SyncRequest syncRequest, User currentUser) {
+        Map<Long, Long> chats = syncRequest.getChats();
+        if (chats == null || chats.isEmpty()) {
+            throw new IllegalArgumentException("At least one chat must be given.");
+        }
+        if (chats.size() > maxChats) {
+            throw new IllegalArgumentException("At most " + maxChats + " chats can be synced at once.");
+        }
+
+        // Checked up front so a bad chat fails the request before anything is streamed
+        for (Long chatId : chats.keySet()) {
+            chatMembershipService.checkMembership(chatId, currentUser);
+        }
+
+        int limit = syncRequest.getLimit() != null
+                ? Math.max(1, Math.min(syncRequest.getLimit(), perChatLimit))
+                : perChatLimit;
+        AtomicInteger remaining = new AtomicInteger(maxMessages);
+
+        return new TreeMap<>(chats).entrySet().stream()
+                .map(entry -> syncChat(entry.getKey(), entry.getValue(), limit, remaining, currentUser))
+                .filter(chat -> !chat.getMessages().isEmpty() || chat.getHasMore());
+    }
+
+    private ChatSyncDto syncChat(Long chatId, Long lastSeq, int limit, AtomicInteger remaining, User currentUser) {
+        long afterSeq = lastSeq != null ? Math.max(0, lastSeq) : 0;
+        int pageSize = Math.min(limit, remaining.get());
+        if (pageSize <= 0) {
+            return new ChatSyncDto(chatId, Collections.emptyList(), afterSeq, true);
+        }
+
+        Slice<Message> slice = messageRepository.findByChatIdAfterSeq(chatId, afterSeq, PageRequest.of(0, pageSize));
+        List<MessageDto> messages = slice.getContent().stream()
+                .map(messageMapper::toDto)
+                .collect(Collectors.toList());
+        readStateService.applyReadFlags(chatId, messages, currentUser);
+        remaining.addAndGet(-messages.size());
+
+        long nextSeq = messages.isEmpty() ? afterSeq : messages.get(messages.size() - 1).getSeq();
+        return new ChatSyncDto(chatId, messages, nextSeq, slice.hasNext());
+    }
+}
@@ -0,0 +1,300 @@
+package org.example.whatsdownbackend.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.whatsdownbackend.dto.PresenceDto;
+import org.example.whatsdownbackend.repository.UserRepository;
+import org.example.whatsdownbackend.repository.UserRepository.LastSeenView;
+import org.example.whatsdownbackend.service.PresenceService;
+import org.example.whatsdownbackend.websocket.OutboundFlowControl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps presence in memory: which users have live STOMP sessions on this node and when they were last seen.
+ * <p>
+ * Connects, disconnects and heartbeats only touch the maps below. Online/offline transitions are
+ * announced on {@code /topic/presence}, with a grace period so a quick reconnect announces nothing,
+ * and last-seen times are written to the users table in periodic batches: those of users who went
+ * offline, and those of online users once they have moved by {@code app.presence.last-seen-resolution-ms}.
+ * <p>
+ * Presence is per node and not shared between nodes. A node only knows the sessions connected to it,
+ * so a user with sessions on two nodes is announced offline by one of them as soon as their sessions
+ * there are gone, and a node reports users online elsewhere as offline with their persisted last-seen time.
+ */
+@Service
+public class PresenceServiceImpl implements PresenceService {
+
+    private static final String UPDATE_LAST_SEEN_SQL = "UPDATE users SET last_seen = ? WHERE id = ?";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final long gracePeriodMs;
+    private final long sessionTimeoutMs;
+    private final long lastSeenResolutionMs;
+
+    // Live sessions on this node by session ID
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // Users with at least one session, or in their grace period, by user ID
+    private final Map<Long, UserPresence> presences = new ConcurrentHashMap<>();
+    // Last-seen times not yet written to the database, by user ID
+    private final Map<Long, Long> pendingLastSeen = new ConcurrentHashMap<>();
+
+    public PresenceServiceImpl(
+            @Value("${app.presence.grace-period-ms:10000}") long gracePeriodMs,
+            @Value("${app.presence.session-timeout-ms:30000}") long sessionTimeoutMs,
+            @Value("${app.presence.last-seen-resolution-ms:300000}") long lastSeenResolutionMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.gracePeriodMs = gracePeriodMs;
+        this.sessionTimeoutMs = sessionTimeoutMs;
+        this.lastSeenResolutionMs = lastSeenResolutionMs;
+        Gauge.builder("presence.users.online", presences, Map::size)
+                .description("Users with a live session on this node, including those in their grace period")
+                .register(meterRegistry);
+        Gauge.builder("presence.last-seen.pending", pendingLastSeen, Map::size)
+                .description("Last-seen times waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionConnected(String sessionId, Long userId, String username) {
+        long now = System.currentTimeMillis();
+        sessions.put(sessionId, new SessionState(userId, now));
+
+        boolean[] cameOnline = {false};
+        presences.compute(userId, (id, presence) -> {
+            if (presence == null) {
+                presence = new UserPresence(username);
+                cameOnline[0] = true;
+            }
+            // Reconnecting within the grace period silently cancels the pending offline
+            presence.sessionIds.add(sessionId);
+            presence.offlineSince = 0;
+            presence.lastSeen = now;
+            return presence;
+        });
+
+        if (cameOnline[0]) {
+            announce(userId, username, true, now);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionDisconnected(String sessionId) {
+        SessionState session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        presences.computeIfPresent(session.userId, (id, presence) -> {
+            presence.sessionIds.remove(sessionId);
+            presence.lastSeen = Math.max(presence.lastSeen, session.lastActivity);
+            if (presence.sessionIds.isEmpty()) {
+                presence.offlineSince = now;
+            }
+            return presence;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionActive(String sessionId) {
+        SessionState session = sessions.get(sessionId);
+        if (session != null) {
+            session.lastActivity = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PresenceDto> getPresence(Collection<Long> userIds) {
+        List<PresenceDto> result = new ArrayList<>();
+        Set<Long> unknown = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            UserPresence presence = presences.get(userId);
+            if (presence != null) {
+                result.add(new PresenceDto(userId, presence.username, true, toDateTime(lastSeenOf(userId, presence))));
+            } else {
+                unknown.add(userId);
+            }
+        }
+
+        if (!unknown.isEmpty()) {
+            for (LastSeenView user : userRepository.findLastSeenByIdIn(unknown)) {
+                // A last-seen time not yet flushed is newer than the persisted one
+                Long pending = pendingLastSeen.get(user.getId());
+                LocalDateTime lastSeen = pending != null ? toDateTime(pending) : user.getLastSeen();
+                result.add(new PresenceDto(user.getId(), user.getUsername(), false, lastSeen));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOnline(Long userId) {
+        return presences.containsKey(userId);
+    }
+
+    /**
+     * Drops sessions that stopped sending heartbeats without a disconnect, and announces users
+     * whose grace period is over as offline.
+     */
+    @Scheduled(fixedDelayString = "${app.presence.sweep-interval-ms:1000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<String, SessionState> entry : sessions.entrySet()) {
+            if (now - entry.getValue().lastActivity > sessionTimeoutMs) {
+                sessionDisconnected(entry.getKey());
+            }
+        }
+
+        for (Long userId : presences.keySet()) {
+            UserPresence[] expired = {null};
+            presences.computeIfPresent(userId, (id, presence) -> {
+                if (presence.sessionIds.isEmpty() && now - presence.offlineSince >= gracePeriodMs) {
+                    expired[0] = presence;
+                    return null;
+                }
+                return presence;
+            });
+
+            if (expired[0] != null) {
+                pendingLastSeen.merge(userId, expired[0].lastSeen, Math::max);
+                announce(userId, expired[0].username, false, expired[0].lastSeen);
+            }
+        }
+    }
+
+    /**
+     * Writes the last-seen time of users who went offline, and of those still online whose last-seen
+     * time has moved by the resolution since it was last written, in one batch.
+     */
+    @Scheduled(fixedDelayString = "${app.presence.persist-interval-ms:30000}")
+    public void persistLastSeen() {
+        persistLastSeen(lastSeenResolutionMs);
+    }
+
+    /**
+     * Writes every last-seen time on shutdown, as the node's users are about to lose their sessions.
+     */
+    @PreDestroy
+    public void persistAllLastSeen() {
+        persistLastSeen(0);
+    }
+
+    private void persistLastSeen(long resolutionMs) {
+        Map<Long, Long> batch = new HashMap<>();
+        for (Long userId : pendingLastSeen.keySet()) {
+            Long lastSeen = pendingLastSeen.remove(userId);
+            if (lastSeen != null) {
+                batch.put(userId, lastSeen);
+            }
+        }
+        Map<Long, UserPresence> online = new HashMap<>();
+        presences.forEach((userId, presence) -> {
+            long lastSeen = lastSeenOf(userId, presence);
+            if (lastSeen - presence.persistedLastSeen > resolutionMs) {
+                batch.put(userId, lastSeen);
+                online.put(userId, presence);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.forEach((userId, lastSeen) -> rows.add(new Object[]{new Timestamp(lastSeen), userId}));
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_SEEN_SQL, rows);
+            online.forEach((userId, presence) -> presence.persistedLastSeen = batch.get(userId));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to persist last-seen of " + rows.size() + " users: " + e.getMessage());
+            // Keep the offline times for the next attempt; online users are still due next time
+            batch.forEach((userId, lastSeen) -> {
+                if (!presences.containsKey(userId)) {
+                    pendingLastSeen.merge(userId, lastSeen, Math::max);
+                }
+            });
+        }
+    }
+
+    /**
+     * For an online user the most recent activity on any of their sessions.
+     */
+    private long lastSeenOf(Long userId, UserPresence presence) {
+        long lastSeen = presence.lastSeen;
+        for (String sessionId : presence.sessionIds) {
+            SessionState session = sessions.get(sessionId);
+            if (session != null) {
+                lastSeen = Math.max(lastSeen, session.lastActivity);
+            }
+        }
+        return lastSeen;
+    }
+
+    private void announce(Long userId, String username, boolean online, long lastSeen) {
+        messagingTemplate.convertAndSend("/topic/presence",
+                new PresenceDto(userId, username, online, toDateTime(lastSeen)),
+                Map.of(OutboundFlowControl.CONFLATION_KEY_HEADER, userId.toString()));
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static final class SessionState {
+        private final Long userId;
+        private volatile long lastActivity;
+
+        private SessionState(Long userId, long lastActivity) {
+            this.userId = userId;
+            this.lastActivity = lastActivity;
+        }
+    }
+
+    private static final class UserPresence {
+        private final String username;
+        private final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+        private volatile long lastSeen;
+        private volatile long offlineSince; // 0 while the user has sessions
+        private volatile long persistedLastSeen; // Last written to the database by this node; 0 if not yet
+
+        private UserPresence(String username) {
+            this.username = username;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.whatsdownbackend.service.impl;
+
+import org.example.whatsdownbackend.dto.MessageDto;
+import org.example.whatsdownbackend.dto.ReadReceiptDto;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.repository.ChatReadStateRepository;
+import org.example.whatsdownbackend.repository.ChatReadStateRepository.ReadStateView;
+import org.example.whatsdownbackend.repository.MessageRepository;
+import org.example.whatsdownbackend.service.ChatMembershipService;
+import org.example.whatsdownbackend.service.ReadStateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ReadStateServiceImpl implements ReadStateService {
+
+    @Autowired
+    private ChatReadStateRepository chatReadStateRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ChatMembershipService chatMembershipService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public Long markReadUpTo(Long chatId, Long userId, Long messageId) {
+        // Clamp to a message that really belongs to the chat, so a client cannot mark future messages read
+        Long watermark = messageRepository.findLatestIdUpTo(chatId, messageId);
+        if (watermark == null) {
+            return null;
+        }
+        chatReadStateRepository.advanceWatermark(chatId, userId, watermark, LocalDateTime.now());
+        return watermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReadReceiptDto> getReadReceipts(Long chatId, Long messageId, User currentUser) {
+        chatMembershipService.checkMembership(chatId, currentUser);
+
+        return chatReadStateRepository.findReadStates(chatId).stream()
+                .filter(state -> messageId == null
+                        || (state.getLastReadMessageId() != null && state.getLastReadMessageId() >= messageId))
+                .map(state -> new ReadReceiptDto(state.getUserId(), state.getUsername(),
+                        state.getLastReadMessageId(), state.getUpdatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void applyReadFlags(Long chatId, List<MessageDto> messages, User currentUser) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        long ownWatermark = 0;
+        long othersWatermark = Long.MAX_VALUE; // Lowest watermark among the other members
+        boolean hasOthers = false;
+        for (ReadStateView state : chatReadStateRepository.findReadStates(chatId)) {
+            long watermark = state.getLastReadMessageId() != null ? state.getLastReadMessageId() : 0;
+            if (state.getUserId().equals(currentUser.getId())) {
+                ownWatermark = watermark;
+            } else {
+                hasOthers = true;
+                othersWatermark = Math.min(othersWatermark, watermark);
+            }
+        }
+        if (!hasOthers) {
+            othersWatermark = 0;
+        }
+
+        for (MessageDto message : messages) {
+            boolean ownMessage = currentUser.getId().equals(message.getSenderId());
+            message.setIsRead(message.getId() <= (ownMessage ? othersWatermark : ownWatermark));
+        }
+    }
+}
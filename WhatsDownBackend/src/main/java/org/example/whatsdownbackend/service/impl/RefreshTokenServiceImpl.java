@@ -5,6 +5,7 @@ import org.example.whatsdownbackend.entity.User;
 import org.example.whatsdownbackend.repository.RefreshTokenRepository;
 import org.example.whatsdownbackend.service.RefreshTokenService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -68,4 +69,13 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     public int deleteByUser(User user) {
         return refreshTokenRepository.deleteByUser(user);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(Instant.now());
+    }
 }
@@ -4,6 +4,7 @@ import org.example.whatsdownbackend.entity.Permission;
 import org.example.whatsdownbackend.entity.Role;
 import org.example.whatsdownbackend.entity.User;
 import org.example.whatsdownbackend.repository.UserRepository;
+import org.example.whatsdownbackend.security.AuthenticatedPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -32,6 +33,33 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .orElseThrow(() ->
                         new UsernameNotFoundException("User Not Found with email: " + email));
 
+        return new org.springframework.security.core.userdetails.User(
+                user.getEmail(),
+                user.getPassword(),
+                mapAuthorities(user)
+        );
+    }
+
+    /**
+     * Loads the user by email into a principal that also carries the user's ID and
+     * a detached snapshot, for caching in the {@link org.example.whatsdownbackend.security.PrincipalCache}.
+     *
+     * @param email The email of the user.
+     * @return The principal with the user's authorities.
+     * @throws UsernameNotFoundException if the user is not found.
+     */
+    public AuthenticatedPrincipal loadPrincipalByEmail(String email) throws UsernameNotFoundException {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() ->
+                        new UsernameNotFoundException("User Not Found with email: " + email));
+
+        return new AuthenticatedPrincipal(user, mapAuthorities(user));
+    }
+
+    /**
+     * Maps a user's roles and their permissions to GrantedAuthorities.
+     */
+    private Set<GrantedAuthority> mapAuthorities(User user) {
         Set<GrantedAuthority> authorities = user.getRoles().stream()
                 // Extract permissions from roles
                 .flatMap(role -> role.getPermissions().stream())
@@ -45,10 +73,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         authorities.addAll(roleAuthorities);
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                authorities
-        );
+        return authorities;
     }
 }
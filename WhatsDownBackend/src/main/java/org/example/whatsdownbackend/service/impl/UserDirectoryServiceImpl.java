@@ -0,0 +1,223 @@
+package org.example.whatsdownbackend.service.impl;
+
+import org.example.whatsdownbackend.dto.UserDirectoryPageDto;
+import org.example.whatsdownbackend.dto.UserProfileDto;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.service.UserDirectoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory user directory for listing and typeahead.
+ * <p>
+ * Users are kept in two sorted maps keyed by lower-cased username and email (suffixed with the
+ * user ID to keep keys unique). A prefix search is a range scan over both maps merged in key order,
+ * so a page costs O(log n + limit) no matter how many users match. The maps are loaded once at
+ * startup, updated by the JPA listener on every user write on this node, and polled for rows
+ * changed on other nodes.
+ */
+@Service
+public class UserDirectoryServiceImpl implements UserDirectoryService {
+
+    private static final int MAX_LIMIT = 100;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final String SELECT_SQL = "SELECT id, username, email, avatar, status, provider, updated_at FROM users";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, UserProfileDto> usersById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, UserProfileDto> byUsername = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, UserProfileDto> byEmail = new ConcurrentSkipListMap<>();
+
+    // Newest updated_at seen so far; the poller picks up rows changed since then
+    private volatile LocalDateTime lastUpdatedAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // Start polling from the load even if no loaded row has a newer updated_at, e.g. on an empty table
+        lastUpdatedAt = LocalDateTime.now();
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            put(new UserProfileDto(rs.getLong("id"), rs.getString("username"), rs.getString("email"),
+                    rs.getString("avatar"), rs.getString("status"), rs.getString("provider")));
+            trackUpdatedAt(rs.getTimestamp("updated_at"));
+        });
+        System.out.println("User directory loaded with " + usersById.size() + " users");
+    }
+
+    /**
+     * Picks up users created or changed on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${app.users.directory.poll-interval-ms:5000}")
+    public void pollChanges() {
+        LocalDateTime since = lastUpdatedAt;
+        if (since == null) {
+            // Not loaded yet
+            return;
+        }
+        // Overlap by a second so rows committed late with the same timestamp are not missed
+        jdbcTemplate.query(SELECT_SQL + " WHERE updated_at >= ?", rs -> {
+            put(new UserProfileDto(rs.getLong("id"), rs.getString("username"), rs.getString("email"),
+                    rs.getString("avatar"), rs.getString("status"), rs.getString("provider")));
+            trackUpdatedAt(rs.getTimestamp("updated_at"));
+        }, Timestamp.valueOf(since.minusSeconds(1)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UserDirectoryPageDto search(String prefix, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String normalized = prefix != null ? prefix.trim().toLowerCase(Locale.ROOT) : "";
+        String after = cursor != null ? decodeCursor(cursor) : null;
+
+        Iterator<Map.Entry<String, UserProfileDto>> usernames = range(byUsername, normalized, after);
+        Iterator<Map.Entry<String, UserProfileDto>> emails = normalized.isEmpty()
+                ? Collections.emptyIterator()
+                : range(byEmail, normalized, after);
+
+        List<UserProfileDto> page = new ArrayList<>(pageSize);
+        Map.Entry<String, UserProfileDto> nextUsername = next(usernames);
+        Map.Entry<String, UserProfileDto> nextEmail = nextEmailOnly(emails, normalized);
+        String lastKey = null;
+
+        while (page.size() < pageSize && (nextUsername != null || nextEmail != null)) {
+            // Merge both maps in key order so the cursor stays a single key
+            boolean takeUsername = nextEmail == null
+                    || (nextUsername != null && nextUsername.getKey().compareTo(nextEmail.getKey()) <= 0);
+            if (takeUsername) {
+                page.add(nextUsername.getValue());
+                lastKey = nextUsername.getKey();
+                nextUsername = next(usernames);
+            } else {
+                page.add(nextEmail.getValue());
+                lastKey = nextEmail.getKey();
+                nextEmail = nextEmailOnly(emails, normalized);
+            }
+        }
+
+        boolean hasNext = nextUsername != null || nextEmail != null;
+        return new UserDirectoryPageDto(page, hasNext ? encodeCursor(lastKey) : null, hasNext);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserProfileDto> getAll() {
+        return new ArrayList<>(byUsername.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void upsert(User user) {
+        put(new UserProfileDto(user.getId(), user.getUsername(), user.getEmail(),
+                user.getAvatar(), user.getStatus(), user.getProvider()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void remove(Long userId) {
+        UserProfileDto previous = usersById.remove(userId);
+        if (previous != null) {
+            byUsername.remove(usernameKey(previous));
+            byEmail.remove(emailKey(previous));
+        }
+    }
+
+    // Writers are rare; serializing them keeps the three maps consistent with each other
+    private synchronized void put(UserProfileDto user) {
+        if (user.getId() == null || user.getUsername() == null) {
+            return;
+        }
+        UserProfileDto previous = usersById.put(user.getId(), user);
+        if (previous != null) {
+            byUsername.remove(usernameKey(previous));
+            byEmail.remove(emailKey(previous));
+        }
+        byUsername.put(usernameKey(user), user);
+        if (user.getEmail() != null) {
+            byEmail.put(emailKey(user), user);
+        }
+    }
+
+    private void trackUpdatedAt(Timestamp updatedAt) {
+        if (updatedAt == null) {
+            return;
+        }
+        LocalDateTime value = updatedAt.toLocalDateTime();
+        if (lastUpdatedAt == null || value.isAfter(lastUpdatedAt)) {
+            lastUpdatedAt = value;
+        }
+    }
+
+    /**
+     * Entries whose key starts with the prefix and sorts after the cursor, in key order.
+     */
+    private static Iterator<Map.Entry<String, UserProfileDto>> range(
+            ConcurrentSkipListMap<String, UserProfileDto> map, String prefix, String after) {
+        ConcurrentNavigableMap<String, UserProfileDto> view = prefix.isEmpty()
+                ? map
+                : map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (after != null) {
+            view = view.tailMap(after, false);
+        }
+        return view.entrySet().iterator();
+    }
+
+    private static Map.Entry<String, UserProfileDto> next(Iterator<Map.Entry<String, UserProfileDto>> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Skips email matches whose username matches as well; those are returned through the username map.
+     */
+    private static Map.Entry<String, UserProfileDto> nextEmailOnly(
+            Iterator<Map.Entry<String, UserProfileDto>> emails, String prefix) {
+        while (emails.hasNext()) {
+            Map.Entry<String, UserProfileDto> entry = emails.next();
+            if (!entry.getValue().getUsername().toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static String usernameKey(UserProfileDto user) {
+        return user.getUsername().toLowerCase(Locale.ROOT) + KEY_SEPARATOR + user.getId();
+    }
+
+    private static String emailKey(UserProfileDto user) {
+        return user.getEmail() != null ? user.getEmail().toLowerCase(Locale.ROOT) + KEY_SEPARATOR + user.getId() : "";
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+}
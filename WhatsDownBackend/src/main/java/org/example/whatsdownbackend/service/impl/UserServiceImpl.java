@@ -3,6 +3,8 @@ package org.example.whatsdownbackend.service.impl;
 import org.example.whatsdownbackend.dto.UserProfileDto;
 import org.example.whatsdownbackend.entity.User;
 import org.example.whatsdownbackend.repository.UserRepository;
+import org.example.whatsdownbackend.security.AuthenticatedPrincipal;
+import org.example.whatsdownbackend.service.UserDirectoryService;
 import org.example.whatsdownbackend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,7 +13,6 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -19,11 +20,18 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public User getCurrentUser(UserDetails userDetails) {
+        // Principals resolved by the JWT filter already carry the user
+        if (userDetails instanceof AuthenticatedPrincipal principal) {
+            return principal.toUser();
+        }
         return userRepository.findByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new NoSuchElementException("User not found."));
     }
@@ -36,17 +44,13 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public List<UserProfileDto> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream().map(user -> new UserProfileDto(
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getAvatar(),
-                user.getStatus(),
-                user.getProvider()
-        )).collect(Collectors.toList());
+        // Served from the in-memory directory instead of loading every user with their roles
+        return userDirectoryService.getAll();
     }
 
     /**
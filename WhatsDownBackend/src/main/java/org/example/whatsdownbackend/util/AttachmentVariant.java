@@ -0,0 +1,73 @@
+package org.example.whatsdownbackend.util;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Downscaled JPEG renditions generated for image attachments.
+ */
+public enum AttachmentVariant {
+
+    THUMBNAIL(320, 0.75f),
+    PREVIEW(1280, 0.85f);
+
+    private final int maxDimension;
+    private final float quality;
+
+    AttachmentVariant(int maxDimension, float quality) {
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+    }
+
+    /**
+     * @return The largest width or height of the variant, in pixels.
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * @return The JPEG compression quality, between 0 and 1.
+     */
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * Resolves where this variant of a file is stored: next to the original, with a suffix.
+     * Blobs are shared by content, so the variants are too.
+     *
+     * @param original The original file.
+     * @return The path of the variant.
+     */
+    public Path pathFor(Path original) {
+        return original.resolveSibling(fileNameFor(original.getFileName().toString()));
+    }
+
+    /**
+     * @param originalName The original file's name.
+     * @return The name of this variant of the file.
+     */
+    public String fileNameFor(String originalName) {
+        return originalName + "." + name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    /**
+     * Parses the variant query parameter.
+     *
+     * @param value "thumbnail" or "preview", in any case; null or "original" for the original file.
+     * @return The variant, or null for the original.
+     * @throws IllegalArgumentException if the value names no variant.
+     */
+    public static AttachmentVariant fromParameter(String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("original")) {
+            return null;
+        }
+        for (AttachmentVariant variant : values()) {
+            if (variant.name().equalsIgnoreCase(value)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown attachment variant: " + value);
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.whatsdownbackend.util;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the EXIF orientation of JPEG files and applies it to decoded pixels. Cameras and phones
+ * store the sensor's pixels as they are and record in this tag how the picture must be turned to
+ * be displayed upright; ImageIO ignores it.
+ */
+public final class ExifOrientation {
+
+    /**
+     * The orientation of images without the tag: displayed as stored.
+     */
+    public static final int NORMAL = 1;
+
+    private static final int ORIENTATION_TAG = 0x0112;
+    private static final int TYPE_SHORT = 3;
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * Reads the orientation tag from the first IFD of a JPEG file's EXIF segment.
+     *
+     * @param file The image file.
+     * @return The orientation, from 1 to 8; {@link #NORMAL} if the file is no JPEG, has no EXIF
+     * segment or the tag is missing or invalid.
+     */
+    public static int read(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readUnsignedShort() != 0xFFD8) {
+                return NORMAL; // No SOI marker
+            }
+            while (true) {
+                int marker = input.readUnsignedShort();
+                // Markers without a segment, and the start of the entropy-coded data
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return NORMAL;
+                }
+                int length = input.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                if (marker == 0xFFE1) {
+                    byte[] segment = new byte[length];
+                    input.readFully(segment);
+                    if (startsWith(segment, EXIF_HEADER)) {
+                        return parseTiff(ByteBuffer.wrap(segment, EXIF_HEADER.length, length - EXIF_HEADER.length).slice());
+                    }
+                } else {
+                    skipFully(input, length);
+                }
+            }
+        } catch (EOFException e) {
+            return NORMAL; // Truncated header
+        }
+    }
+
+    /**
+     * Turns an image upright according to its orientation.
+     *
+     * @param image       The decoded pixels, as stored.
+     * @param orientation The EXIF orientation, from 1 to 8.
+     * @return The upright image; the same image for {@link #NORMAL} or unknown values.
+     */
+    public static BufferedImage apply(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // Maps stored pixels to displayed ones; the arguments are m00, m10, m01, m11, m02, m12 of
+        // x' = m00 * x + m01 * y + m02 and y' = m10 * x + m11 * y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // Mirrored horizontally
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // Rotated 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // Mirrored vertically
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // Transposed
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // Rotated 90° clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // Transversed
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);   // Rotated 90° counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+
+        boolean swapsAxes = orientation >= 5;
+        BufferedImage upright = new BufferedImage(swapsAxes ? h : w, swapsAxes ? w : h,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = upright.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return upright;
+    }
+
+    private static int parseTiff(ByteBuffer tiff) {
+        try {
+            if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+                tiff.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+                return NORMAL;
+            }
+            int ifd = tiff.getInt(4);
+            int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if (Short.toUnsignedInt(tiff.getShort(entry)) == ORIENTATION_TAG) {
+                    if (tiff.getShort(entry + 2) != TYPE_SHORT) {
+                        return NORMAL;
+                    }
+                    int orientation = tiff.getShort(entry + 8);
+                    return orientation >= 1 && orientation <= 8 ? orientation : NORMAL;
+                }
+            }
+            return NORMAL;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            return NORMAL; // Offsets pointing outside the segment
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void skipFully(InputStream input, long count) throws IOException {
+        while (count > 0) {
+            long skipped = input.skip(count);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.whatsdownbackend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors handed out by the chat history endpoint.
+ * A cursor wraps the ID of the message at the edge of a slice, so clients never
+ * depend on the underlying key.
+ */
+public final class MessageCursor {
+
+    private static final String PREFIX = "m:";
+
+    private MessageCursor() {
+    }
+
+    /**
+     * Encodes a message ID as an opaque cursor.
+     *
+     * @param messageId The ID of the message at the edge of a slice.
+     * @return The cursor string.
+     */
+    public static String encode(Long messageId) {
+        String raw = PREFIX + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode(Long)}.
+     *
+     * @param cursor The cursor string.
+     * @return The message ID it wraps.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static Long decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and Base64 decoding errors both land here
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.whatsdownbackend.util;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate side of {@link SnowflakeId}. Hibernate instantiates generators itself, so the
+ * node's generator is handed over through a static field when the persistence unit is built.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    private static volatile SnowflakeIdGenerator idGenerator;
+
+    /**
+     * Installs the generator used by every {@link SnowflakeId} entity.
+     *
+     * @param generator The node's ID generator.
+     */
+    public static void setIdGenerator(SnowflakeIdGenerator generator) {
+        idGenerator = generator;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        SnowflakeIdGenerator generator = idGenerator;
+        if (generator == null) {
+            throw new IllegalStateException("Snowflake ID generator has not been configured");
+        }
+        return generator.nextId();
+    }
+}
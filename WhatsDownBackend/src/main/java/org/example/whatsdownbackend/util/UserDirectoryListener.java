@@ -0,0 +1,34 @@
+package org.example.whatsdownbackend.util;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.service.UserDirectoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * JPA entity listener that applies user writes made on this node to the in-memory user directory.
+ */
+public class UserDirectoryListener {
+
+    @Autowired
+    @Lazy
+    private UserDirectoryService userDirectoryService;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(User user) {
+        if (userDirectoryService != null) {
+            userDirectoryService.upsert(user);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(User user) {
+        if (userDirectoryService != null) {
+            userDirectoryService.remove(user.getId());
+        }
+    }
+}
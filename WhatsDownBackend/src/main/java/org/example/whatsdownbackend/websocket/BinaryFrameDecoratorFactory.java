@@ -0,0 +1,61 @@
+package org.example.whatsdownbackend.websocket;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+
+/**
+ * Sends the STOMP frames of CBOR sessions as binary WebSocket frames.
+ *
+ * <p>The STOMP handler only uses binary frames for {@code application/octet-stream} bodies and sends
+ * everything else as text, which would mangle a CBOR body. {@link TextMessage} keeps the encoded
+ * frame bytes, so they are re-sent as is in a binary frame. SockJS sessions are left alone and are
+ * never offered CBOR.
+ */
+@Component
+public class BinaryFrameDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+
+    @Autowired
+    private PayloadCodecInterceptor payloadCodecInterceptor;
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                // Other decorators, such as outbound flow control, may have wrapped the session already
+                if (WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession) {
+                    super.afterConnectionEstablished(session);
+                    return;
+                }
+                payloadCodecInterceptor.binaryCapable(session.getId());
+                super.afterConnectionEstablished(new BinaryFrameSession(session));
+            }
+        };
+    }
+
+    private class BinaryFrameSession extends WebSocketSessionDecorator {
+
+        BinaryFrameSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (message instanceof TextMessage text && payloadCodecInterceptor.usesCbor(getId())) {
+                message = new BinaryMessage(text.asBytes());
+            }
+            super.sendMessage(message);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.whatsdownbackend.websocket;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Reads and writes STOMP payloads as CBOR, Jackson's binary encoding of the same object model as JSON.
+ * Only used for messages whose content-type is {@code application/cbor}; everything else keeps going
+ * through the default JSON converter.
+ */
+@Component
+public class CborMessageConverter extends MappingJackson2MessageConverter {
+
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+    public CborMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        super(APPLICATION_CBOR);
+        // Same modules and date handling as the JSON mapper, so both encodings carry the same values
+        setObjectMapper(objectMapperBuilder.factory(new CBORFactory()).build());
+        setSerializedPayloadClass(byte[].class);
+        // Without a content-type header the JSON converter is used
+        setStrictContentTypeMatch(true);
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.whatsdownbackend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.whatsdownbackend.dto.ReadReceiptDto;
+import org.example.whatsdownbackend.dto.TypingEvent;
+import org.example.whatsdownbackend.entity.ChatUserId;
+import org.example.whatsdownbackend.service.ReadStateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces read acks and typing events per (chat, user) before they reach the database or the broker.
+ * <p>
+ * Events only update a pending entry; a scheduled flush drains the entries once per window. A read ack
+ * therefore costs at most one watermark upsert and one receipt frame per (chat, user) per window, and
+ * a "typing" state is re-broadcast at most once per typing interval, however chatty the client is.
+ */
+@Component
+public class ChatEventCoalescer {
+
+    @Autowired
+    private ReadStateService readStateService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final long typingIntervalMs;
+
+    // Highest read message per (chat, user) since the last flush
+    private final Map<ChatUserId, PendingRead> pendingReads = new ConcurrentHashMap<>();
+    // Latest typing state per (chat, user) since the last flush
+    private final Map<ChatUserId, TypingEvent> pendingTyping = new ConcurrentHashMap<>();
+    // When "typing" was last broadcast per (chat, user); absent once the user stopped
+    private final Map<ChatUserId, Long> typingBroadcastAt = new ConcurrentHashMap<>();
+
+    private final Counter readsSubmitted;
+    private final Counter readsFlushed;
+    private final Counter typingSubmitted;
+    private final Counter typingFlushed;
+
+    public ChatEventCoalescer(
+            @Value("${app.websocket.coalesce.typing-interval-ms:2000}") long typingIntervalMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.typingIntervalMs = typingIntervalMs;
+        this.readsSubmitted = meterRegistry.counter("websocket.coalescer.submitted", "type", "read");
+        this.readsFlushed = meterRegistry.counter("websocket.coalescer.flushed", "type", "read");
+        this.typingSubmitted = meterRegistry.counter("websocket.coalescer.submitted", "type", "typing");
+        this.typingFlushed = meterRegistry.counter("websocket.coalescer.flushed", "type", "typing");
+    }
+
+    /**
+     * Records that a member has read a chat up to the given message. Only the highest ID seen
+     * within a window is persisted and broadcast.
+     */
+    public void submitRead(Long chatId, Long userId, String username, Long messageId) {
+        readsSubmitted.increment();
+        pendingReads.merge(new ChatUserId(chatId, userId), new PendingRead(username, messageId),
+                (current, next) -> next.messageId > current.messageId ? next : current);
+    }
+
+    /**
+     * Records a member's typing state. Only the latest state within a window is considered.
+     */
+    public void submitTyping(Long chatId, Long userId, String username, boolean typing) {
+        typingSubmitted.increment();
+        pendingTyping.put(new ChatUserId(chatId, userId), new TypingEvent(chatId, userId, username, typing));
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.coalesce.window-ms:500}")
+    public void flush() {
+        flushReads();
+        flushTyping();
+    }
+
+    private void flushReads() {
+        for (ChatUserId key : pendingReads.keySet()) {
+            PendingRead read = pendingReads.remove(key);
+            if (read == null) {
+                continue;
+            }
+            try {
+                Long watermark = readStateService.markReadUpTo(key.getChatId(), key.getUserId(), read.messageId);
+                if (watermark != null) {
+                    messagingTemplate.convertAndSend("/topic/chat/" + key.getChatId() + "/read",
+                            new ReadReceiptDto(key.getUserId(), read.username, watermark, LocalDateTime.now()),
+                            Map.of(OutboundFlowControl.CONFLATION_KEY_HEADER, key.getUserId().toString()));
+                    readsFlushed.increment();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to flush read ack of user " + key.getUserId()
+                        + " in chat " + key.getChatId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushTyping() {
+        long now = System.currentTimeMillis();
+        for (ChatUserId key : pendingTyping.keySet()) {
+            TypingEvent event = pendingTyping.remove(key);
+            if (event == null) {
+                continue;
+            }
+            if (event.getTyping()) {
+                Long lastBroadcast = typingBroadcastAt.get(key);
+                if (lastBroadcast != null && now - lastBroadcast < typingIntervalMs) {
+                    // Subscribers still show this user as typing
+                    continue;
+                }
+                typingBroadcastAt.put(key, now);
+            } else if (typingBroadcastAt.remove(key) == null) {
+                // Stopped typing before anyone was told it started
+                continue;
+            }
+            messagingTemplate.convertAndSend("/topic/chat/" + key.getChatId() + "/typing", event,
+                    Map.of(OutboundFlowControl.CONFLATION_KEY_HEADER, key.getUserId().toString()));
+            typingFlushed.increment();
+        }
+
+        // Forget typists that went quiet without saying so; subscribers time them out on their own
+        Iterator<Long> broadcasts = typingBroadcastAt.values().iterator();
+        while (broadcasts.hasNext()) {
+            if (now - broadcasts.next() >= typingIntervalMs * 2) {
+                broadcasts.remove();
+            }
+        }
+    }
+
+    private static final class PendingRead {
+        private final String username;
+        private final long messageId;
+
+        private PendingRead(String username, long messageId) {
+            this.username = username;
+            this.messageId = messageId;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.whatsdownbackend.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.whatsdownbackend.entity.BrokerEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Cross-node message bus for the "database" broker mode.
+ * <p>
+ * Every node keeps its simple broker. Messages published to {@code /topic/**} on one node are
+ * appended to the broker_events table, and every other node polls the table and hands the new
+ * rows to its own broker. Messages sent to {@code /user/**} travel the same way and are resolved
+ * by each node against the sessions it holds, so they reach a user's sessions on every node.
+ * Messages aimed at one session are left alone; that session lives on the publishing node.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker.mode", havingValue = "database")
+public class DatabaseBrokerBus implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseBrokerBus.class);
+
+    // Marks messages delivered from the bus, so they are not published again
+    static final String RELAYED_HEADER = "brokerBusRelayed";
+
+    private static final TypeReference<Map<String, List<String>>> NATIVE_HEADERS_TYPE = new TypeReference<>() {};
+
+    private static final String INSERT_SQL =
+            "INSERT INTO broker_events (origin, destination, content_type, native_headers, payload, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String POLL_SQL =
+            "SELECT id, origin, destination, content_type, native_headers, payload, created_at " +
+            "FROM broker_events WHERE id > ? ORDER BY id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Lazy
+    @Qualifier("brokerChannel")
+    private MessageChannel brokerChannel;
+
+    private final String nodeId;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final long retentionMs;
+    private final BlockingQueue<BrokerEvent> outbox;
+
+    private long cursor = -1; // ID of the last row handled; -1 until the first poll
+    private long gapSeenAt;   // When the poller first waited on a missing ID, 0 if not waiting
+
+    public DatabaseBrokerBus(
+            @Value("${app.websocket.broker.node-id:}") String nodeId,
+            @Value("${app.websocket.broker.database.batch-size:500}") int batchSize,
+            @Value("${app.websocket.broker.database.outbox-capacity:10000}") int outboxCapacity,
+            @Value("${app.websocket.broker.database.gap-timeout-ms:1000}") long gapTimeoutMs,
+            @Value("${app.websocket.broker.database.retention-ms:60000}") long retentionMs
+    ) {
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString();
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.retentionMs = retentionMs;
+        this.outbox = new ArrayBlockingQueue<>(outboxCapacity);
+    }
+
+    /**
+     * Captures messages on their way to the local broker. The message itself continues
+     * unchanged, so local subscribers are not delayed by the bus.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || message.getHeaders().containsKey(RELAYED_HEADER)
+                || destination == null || !isShared(destination, accessor)
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        MimeType contentType = accessor.getContentType();
+        BrokerEvent event = new BrokerEvent(null, nodeId, destination,
+                contentType != null ? contentType.toString() : null,
+                writeNativeHeaders(accessor.toNativeHeaderMap()), payload, Instant.now());
+        if (!outbox.offer(event)) {
+            // Outbox full: write through on the publishing thread rather than lose the message
+            insert(List.of(event));
+        }
+        return message;
+    }
+
+    /**
+     * Writes captured messages to the broker_events table in batches.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.broker.database.flush-interval-ms:20}")
+    public void flushOutbox() {
+        List<BrokerEvent> batch = new ArrayList<>(batchSize);
+        while (outbox.drainTo(batch, batchSize) > 0) {
+            insert(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Delivers rows published by other nodes to the local broker, in ID order.
+     * <p>
+     * Concurrent inserts may commit out of ID order, so a missing ID holds the cursor back for up
+     * to the gap timeout; after that it is treated as a rolled back insert and skipped.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.broker.database.poll-interval-ms:50}")
+    public synchronized void poll() {
+        if (cursor < 0) {
+            // Start from the current end of the table; older messages were meant for sessions of the past
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM broker_events", Long.class);
+            cursor = maxId != null ? maxId : 0;
+            return;
+        }
+
+        List<BrokerEvent> events = jdbcTemplate.query(POLL_SQL, (rs, rowNum) -> new BrokerEvent(
+                rs.getLong("id"),
+                rs.getString("origin"),
+                rs.getString("destination"),
+                rs.getString("content_type"),
+                rs.getString("native_headers"),
+                rs.getBytes("payload"),
+                rs.getTimestamp("created_at").toInstant()
+        ), cursor, batchSize);
+
+        for (BrokerEvent event : events) {
+            if (event.getId() != cursor + 1) {
+                long now = System.currentTimeMillis();
+                if (gapSeenAt == 0) {
+                    gapSeenAt = now;
+                }
+                if (now - gapSeenAt < gapTimeoutMs) {
+                    return;
+                }
+            }
+            gapSeenAt = 0;
+            if (!nodeId.equals(event.getOrigin())) {
+                deliver(event);
+            }
+            cursor = event.getId();
+        }
+    }
+
+    /**
+     * Purges rows every node has had time to poll.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.broker.database.purge-interval-ms:30000}")
+    public void purgeDelivered() {
+        jdbcTemplate.update("DELETE FROM broker_events WHERE created_at < ?",
+                Timestamp.from(Instant.now().minusMillis(retentionMs)));
+    }
+
+    /**
+     * @return The ID this node publishes under.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void insert(List<BrokerEvent> events) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+                ps.setString(1, event.getOrigin());
+                ps.setString(2, event.getDestination());
+                ps.setString(3, event.getContentType());
+                ps.setString(4, event.getNativeHeaders());
+                ps.setBytes(5, event.getPayload());
+                ps.setTimestamp(6, Timestamp.from(event.getCreatedAt()));
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to publish {} broker events", events.size(), e);
+        }
+    }
+
+    private void deliver(BrokerEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        readNativeHeaders(event.getNativeHeaders())
+                .forEach((name, values) -> values.forEach(value -> accessor.addNativeHeader(name, value)));
+        accessor.setDestination(event.getDestination());
+        if (event.getContentType() != null) {
+            accessor.setContentType(MimeType.valueOf(event.getContentType()));
+        }
+        accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+        brokerChannel.send(MessageBuilder.createMessage(event.getPayload(), accessor.getMessageHeaders()));
+    }
+
+    private static boolean isShared(String destination, SimpMessageHeaderAccessor accessor) {
+        return destination.startsWith("/topic/")
+                || (destination.startsWith("/user/") && accessor.getSessionId() == null);
+    }
+
+    private String writeNativeHeaders(Map<String, List<String>> nativeHeaders) {
+        if (nativeHeaders.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(nativeHeaders);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize native headers", e);
+        }
+    }
+
+    private Map<String, List<String>> readNativeHeaders(String json) {
+        if (json == null) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(json, NATIVE_HEADERS_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable broker event headers: {}", e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.whatsdownbackend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.whatsdownbackend.util.BoundedCache;
+import org.example.whatsdownbackend.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token-bucket rate limiting of inbound STOMP frames, per session and per user, by kind of frame.
+ * <p>
+ * Runs on the thread that read the frame, before it is handed to the inbound executor, so a flooding
+ * client is turned away without taking executor threads or database time from everyone else.
+ * A throttled frame is dropped; if it asked for a receipt it gets one with {@code throttled:true} and
+ * {@code retry-after-ms}. A session that keeps pushing while throttled is sent an ERROR frame, which
+ * closes it.
+ */
+@Component
+public class InboundRateLimitInterceptor implements ChannelInterceptor {
+
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+    enum Category {
+        MESSAGE, // SEND of anything else, chat messages first of all
+        EVENT, // SEND of typing and read events, which are coalesced anyway
+        SUBSCRIBE
+    }
+
+    // Lazy: the channel is created by the same configuration this interceptor is registered in
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    private final boolean enabled;
+    private final int disconnectAfter;
+    private final Map<Category, Limit> sessionLimits = new EnumMap<>(Category.class);
+    private final Map<Category, Limit> userLimits = new EnumMap<>(Category.class);
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // A user's buckets are shared by all of their sessions on this node
+    private final BoundedCache<String, Map<Category, TokenBucket>> userBuckets;
+
+    private final Map<Category, Counter> sessionDrops = new EnumMap<>(Category.class);
+    private final Map<Category, Counter> userDrops = new EnumMap<>(Category.class);
+    private final Counter disconnects;
+
+    public InboundRateLimitInterceptor(
+            @Value("${app.websocket.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.websocket.rate-limit.disconnect-after:100}") int disconnectAfter,
+            Environment environment,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.disconnectAfter = disconnectAfter;
+        this.userBuckets = new BoundedCache<>(100_000, TimeUnit.MINUTES.toMillis(10));
+
+        // app.websocket.rate-limit.<category>.{session,user}-{capacity,refill-per-second}
+        sessionLimits.put(Category.MESSAGE, Limit.of(environment, "message.session", 20, 5));
+        userLimits.put(Category.MESSAGE, Limit.of(environment, "message.user", 40, 10));
+        sessionLimits.put(Category.EVENT, Limit.of(environment, "event.session", 50, 20));
+        userLimits.put(Category.EVENT, Limit.of(environment, "event.user", 100, 40));
+        sessionLimits.put(Category.SUBSCRIBE, Limit.of(environment, "subscribe.session", 500, 50));
+        userLimits.put(Category.SUBSCRIBE, Limit.of(environment, "subscribe.user", 1000, 100));
+
+        for (Category category : Category.values()) {
+            String type = category.name().toLowerCase(Locale.ROOT);
+            sessionDrops.put(category, meterRegistry.counter("websocket.inbound.throttled", "type", type, "scope", "session"));
+            userDrops.put(category, meterRegistry.counter("websocket.inbound.throttled", "type", type, "scope", "user"));
+        }
+        this.disconnects = Counter.builder("websocket.inbound.throttle_disconnects")
+                .description("Sessions closed for pushing frames while throttled")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        Category category = accessor != null ? categorize(accessor) : null;
+        String sessionId = accessor != null ? accessor.getSessionId() : null;
+        if (category == null || sessionId == null) {
+            return message;
+        }
+
+        SessionState state = sessions.computeIfAbsent(sessionId, id -> new SessionState(newBuckets(sessionLimits)));
+        TokenBucket sessionBucket = state.buckets.get(category);
+        if (!sessionBucket.tryConsume()) {
+            sessionDrops.get(category).increment();
+            return throttled(accessor, state, sessionBucket);
+        }
+
+        Principal user = accessor.getUser();
+        if (user != null) {
+            TokenBucket userBucket = userBuckets.computeIfAbsent(user.getName(), name -> newBuckets(userLimits))
+                    .get(category);
+            if (!userBucket.tryConsume()) {
+                sessionBucket.refund();
+                userDrops.get(category).increment();
+                return throttled(accessor, state, userBucket);
+            }
+        }
+
+        state.strikes.set(0);
+        return message;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    private static Category categorize(StompHeaderAccessor accessor) {
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            return Category.SUBSCRIBE;
+        }
+        if (StompCommand.SEND.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            boolean event = destination != null && (destination.endsWith("/typing") || destination.endsWith("/read"));
+            return event ? Category.EVENT : Category.MESSAGE;
+        }
+        return null; // CONNECT, heartbeats, UNSUBSCRIBE and DISCONNECT are never throttled
+    }
+
+    /**
+     * Drops the frame, answering with a receipt if one was requested, or with an ERROR once the
+     * session has been throttled too many times in a row.
+     */
+    private Message<?> throttled(StompHeaderAccessor accessor, SessionState state, TokenBucket bucket) {
+        int strikes = state.strikes.incrementAndGet();
+        if (strikes == disconnectAfter) {
+            disconnects.increment();
+            StompHeaderAccessor error = StompHeaderAccessor.create(StompCommand.ERROR);
+            error.setSessionId(accessor.getSessionId());
+            error.setMessage("Rate limit exceeded");
+            clientOutboundChannel.send(MessageBuilder.createMessage(EMPTY_PAYLOAD, error.getMessageHeaders()));
+        } else if (strikes < disconnectAfter && accessor.getReceipt() != null) {
+            StompHeaderAccessor receipt = StompHeaderAccessor.create(StompCommand.RECEIPT);
+            receipt.setSessionId(accessor.getSessionId());
+            receipt.setReceiptId(accessor.getReceipt());
+            receipt.setNativeHeader("throttled", "true");
+            receipt.setNativeHeader("retry-after-ms", String.valueOf(bucket.millisUntilAvailable()));
+            clientOutboundChannel.send(MessageBuilder.createMessage(EMPTY_PAYLOAD, receipt.getMessageHeaders()));
+        }
+        return null;
+    }
+
+    private static Map<Category, TokenBucket> newBuckets(Map<Category, Limit> limits) {
+        Map<Category, TokenBucket> buckets = new EnumMap<>(Category.class);
+        limits.forEach((category, limit) -> buckets.put(category, new TokenBucket(limit.capacity(), limit.refillPerSecond())));
+        return buckets;
+    }
+
+    private record Limit(int capacity, double refillPerSecond) {
+
+        static Limit of(Environment environment, String prefix, int defaultCapacity, double defaultRefillPerSecond) {
+            String key = "app.websocket.rate-limit." + prefix;
+            return new Limit(
+                    environment.getProperty(key + "-capacity", Integer.class, defaultCapacity),
+                    environment.getProperty(key + "-refill-per-second", Double.class, defaultRefillPerSecond));
+        }
+    }
+
+    private static class SessionState {
+        final Map<Category, TokenBucket> buckets;
+        // Frames throttled in a row; reset by the next frame let through
+        final AtomicInteger strikes = new AtomicInteger();
+
+        SessionState(Map<Category, TokenBucket> buckets) {
+            this.buckets = buckets;
+        }
+    }
+}
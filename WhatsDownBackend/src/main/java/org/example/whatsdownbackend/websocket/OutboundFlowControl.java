@@ -0,0 +1,283 @@
+package org.example.whatsdownbackend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.whatsdownbackend.dto.ResyncSignal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps slow subscribers from piling up outbound frames on this node.
+ * <p>
+ * Counts, per session, the frames handed to the client outbound channel that have not been written to
+ * the socket yet. Past a soft limit (or while a single write has been stuck for too long) the session
+ * is congested: conflatable events, those published with a {@value #CONFLATION_KEY_HEADER} header such as
+ * presence, typing and read receipts, are held back with only the newest per destination and key kept.
+ * Past a hard limit, other messages are dropped and the session is owed a {@link ResyncSignal} on
+ * {@code /user/queue/resync} listing the affected chats. Once the session has drained, the held
+ * events and the resync signal are released. Spring's own send-time and buffer limits stay in place as
+ * the backstop for sessions that stop reading altogether.
+ * <p>
+ * Registered on the client outbound channel and as a WebSocket handler decorator, which sees the writes.
+ */
+@Component
+public class OutboundFlowControl implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    /**
+     * Native header marking a broadcast as superseded by the next one with the same destination and key.
+     */
+    public static final String CONFLATION_KEY_HEADER = "conflation-key";
+
+    private static final Pattern CHAT_DESTINATION = Pattern.compile("^/topic/chat/(\\d+)(/seq)?$");
+
+    // Lazy: both are created by the configuration this component is registered in
+    @Autowired
+    @Lazy
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    @Autowired
+    @Lazy
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final int conflateAfterFrames;
+    private final int maxQueuedFrames;
+    private final long slowSendNanos;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    private final Counter conflated;
+    private final Counter dropped;
+    private final Counter resyncSignals;
+
+    public OutboundFlowControl(
+            @Value("${app.websocket.outbound.conflate-after-frames:32}") int conflateAfterFrames,
+            @Value("${app.websocket.outbound.max-queued-frames:256}") int maxQueuedFrames,
+            @Value("${app.websocket.outbound.slow-send-ms:2000}") long slowSendMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.conflateAfterFrames = conflateAfterFrames;
+        this.maxQueuedFrames = maxQueuedFrames;
+        this.slowSendNanos = TimeUnit.MILLISECONDS.toNanos(slowSendMs);
+
+        this.conflated = Counter.builder("websocket.outbound.conflated")
+                .description("Outbound events replaced by a newer one while the session was congested")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("websocket.outbound.dropped")
+                .description("Outbound messages dropped because the session was too far behind")
+                .register(meterRegistry);
+        this.resyncSignals = Counter.builder("websocket.outbound.resync_signals")
+                .description("Resync signals sent to sessions that had messages dropped")
+                .register(meterRegistry);
+        Gauge.builder("websocket.outbound.slow_sessions", this, OutboundFlowControl::countCongested)
+                .description("Sessions currently congested on this node")
+                .register(meterRegistry);
+        Gauge.builder("websocket.outbound.queued_frames", this, OutboundFlowControl::countQueued)
+                .description("Frames accepted for sessions on this node but not yet written")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            // Not a WebSocket session of this node, or already closed
+            return message;
+        }
+
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            // Heartbeats, receipts, errors and CONNECTED always go out
+            state.queued.incrementAndGet();
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (destination != null && destination.endsWith("/queue/resync")) {
+            state.queued.incrementAndGet();
+            return message;
+        }
+
+        String conflationKey = accessor.getFirstNativeHeader(CONFLATION_KEY_HEADER);
+        if (conflationKey != null) {
+            synchronized (state) {
+                // Once anything is held, later events wait too so they cannot overtake it
+                if (state.isCongested(System.nanoTime()) || !state.held.isEmpty()) {
+                    if (state.held.put(destination + '\0' + conflationKey, message) != null) {
+                        conflated.increment();
+                    }
+                    return null;
+                }
+            }
+        } else if (state.queued.get() >= maxQueuedFrames) {
+            dropped.increment();
+            synchronized (state) {
+                state.droppedMessages++;
+                Matcher chat = destination != null ? CHAT_DESTINATION.matcher(destination) : null;
+                if (chat != null && chat.matches()) {
+                    state.resyncChats.add(Long.valueOf(chat.group(1)));
+                }
+            }
+            return null;
+        }
+
+        state.queued.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState();
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new CountingSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Releases held events and owed resync signals of sessions that have caught up.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.outbound.release-interval-ms:100}")
+    public void releaseDrained() {
+        long now = System.nanoTime();
+        sessions.forEach((sessionId, state) -> {
+            List<Message<?>> release;
+            ResyncSignal signal = null;
+            synchronized (state) {
+                boolean drained = !state.isCongested(now) && state.queued.get() <= conflateAfterFrames / 2;
+                if (!drained || (state.held.isEmpty() && state.droppedMessages == 0)) {
+                    return;
+                }
+                release = new ArrayList<>(state.held.values());
+                state.held.clear();
+                if (state.droppedMessages > 0 && state.user != null) {
+                    signal = new ResyncSignal(new ArrayList<>(state.resyncChats), state.droppedMessages);
+                    state.resyncChats.clear();
+                    state.droppedMessages = 0;
+                }
+            }
+
+            for (Message<?> message : release) {
+                clientOutboundChannel.send(message);
+            }
+            if (signal != null) {
+                SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+                headers.setSessionId(sessionId);
+                headers.setLeaveMutable(true);
+                messagingTemplate.convertAndSendToUser(state.user, "/queue/resync", signal, headers.getMessageHeaders());
+                resyncSignals.increment();
+            }
+        });
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        Principal user = event.getUser();
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state != null && user != null) {
+            state.user = user.getName();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    private double countCongested() {
+        long now = System.nanoTime();
+        return sessions.values().stream().filter(state -> state.isCongested(now)).count();
+    }
+
+    private double countQueued() {
+        return sessions.values().stream().mapToInt(state -> state.queued.get()).sum();
+    }
+
+    private class SessionState {
+        // Frames accepted onto the outbound channel and not yet written to the socket
+        final AtomicInteger queued = new AtomicInteger();
+        // When the write in progress started; 0 when idle
+        volatile long sendStartedNanos;
+        volatile String user;
+
+        // Guarded by this
+        final Map<String, Message<?>> held = new LinkedHashMap<>();
+        final Set<Long> resyncChats = new TreeSet<>();
+        long droppedMessages;
+
+        boolean isCongested(long now) {
+            long started = sendStartedNanos;
+            return queued.get() > conflateAfterFrames || (started != 0 && now - started > slowSendNanos);
+        }
+    }
+
+    /**
+     * Marks each write as it happens, so the session's backlog and stuck writes are visible to admission.
+     */
+    private class CountingSession extends WebSocketSessionDecorator {
+
+        private final SessionState state;
+
+        CountingSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            state.sendStartedNanos = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.sendStartedNanos = 0;
+                state.queued.updateAndGet(queued -> queued > 0 ? queued - 1 : 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.whatsdownbackend.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.whatsdownbackend.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Negotiates the payload encoding of each STOMP session and re-encodes outbound messages to match.
+ *
+ * <p>A client opts in to CBOR by sending {@code content-type:application/cbor} in its CONNECT frame.
+ * Only sessions on the native WebSocket endpoint qualify, since CBOR has to travel in binary frames,
+ * which SockJS cannot carry; other sessions stay on JSON. Broadcasts are still produced once, as JSON,
+ * and transcoded here for CBOR sessions. The simple broker hands every subscriber of a destination
+ * the same payload array, so a short-lived cache keyed by that array makes it one transcode per
+ * broadcast rather than one per subscriber.
+ *
+ * <p>Registered on both the inbound channel (CONNECT) and the outbound channel (MESSAGE).
+ */
+@Component
+public class PayloadCodecInterceptor implements ChannelInterceptor {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper;
+
+    // Sessions that can receive binary frames, i.e. not SockJS
+    private final Set<String> binarySessions = ConcurrentHashMap.newKeySet();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    // Byte arrays compare by identity, so this maps each broadcast payload to its CBOR form
+    private final BoundedCache<byte[], byte[]> transcoded;
+
+    private final Counter transcodes;
+
+    public PayloadCodecInterceptor(
+            CborMessageConverter cborMessageConverter,
+            MeterRegistry meterRegistry,
+            @Value("${app.websocket.codec.cache-size:1024}") int cacheSize,
+            @Value("${app.websocket.codec.cache-ttl-ms:5000}") long cacheTtlMs
+    ) {
+        this.cborMapper = cborMessageConverter.getObjectMapper();
+        this.transcoded = new BoundedCache<>(cacheSize, cacheTtlMs);
+        this.transcodes = Counter.builder("websocket.codec.transcodes")
+                .description("Broadcast payloads re-encoded from JSON to CBOR")
+                .register(meterRegistry);
+        Gauge.builder("websocket.codec.cbor_sessions", cborSessions, Set::size)
+                .description("STOMP sessions that negotiated CBOR payloads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks a session as able to receive binary frames.
+     *
+     * @param sessionId The WebSocket session ID, which is also its STOMP session ID.
+     */
+    public void binaryCapable(String sessionId) {
+        binarySessions.add(sessionId);
+    }
+
+    /**
+     * @param sessionId The WebSocket session ID.
+     * @return True if the session negotiated CBOR and its frames must be sent as binary.
+     */
+    public boolean usesCbor(String sessionId) {
+        return cborSessions.contains(sessionId);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (messageType == SimpMessageType.CONNECT) {
+            negotiate(message);
+            return message;
+        }
+        if (messageType == SimpMessageType.MESSAGE) {
+            return encodeFor(message);
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        binarySessions.remove(event.getSessionId());
+        cborSessions.remove(event.getSessionId());
+    }
+
+    private void negotiate(Message<?> message) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return;
+        }
+        String sessionId = accessor.getSessionId();
+        MimeType requested = accessor.getContentType();
+        if (sessionId != null && requested != null && CborMessageConverter.APPLICATION_CBOR.equalsTypeAndSubtype(requested)
+                && binarySessions.contains(sessionId)) {
+            cborSessions.add(sessionId);
+        }
+    }
+
+    private Message<?> encodeFor(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null || !cborSessions.contains(sessionId) || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        if (contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+
+        byte[] cbor = transcoded.computeIfAbsent(payload, this::toCbor);
+        accessor.setContentType(CborMessageConverter.APPLICATION_CBOR);
+        accessor.setNativeHeader("content-type", CborMessageConverter.APPLICATION_CBOR.toString());
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    private byte[] toCbor(byte[] json) {
+        try {
+            transcodes.increment();
+            return cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+        } catch (IOException e) {
+            throw new MessagingException("Could not re-encode payload as CBOR", e);
+        }
+    }
+}
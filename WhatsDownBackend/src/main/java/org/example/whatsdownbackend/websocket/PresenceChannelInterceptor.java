@@ -0,0 +1,31 @@
+package org.example.whatsdownbackend.websocket;
+
+import org.example.whatsdownbackend.service.PresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds every inbound client frame, heartbeats included, to the presence service as session activity.
+ */
+@Component
+public class PresenceChannelInterceptor implements ChannelInterceptor {
+
+    // Lazy: the presence service publishes through the broker this channel is configured for
+    @Autowired
+    @Lazy
+    private PresenceService presenceService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            presenceService.sessionActive(sessionId);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.whatsdownbackend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the executors behind the STOMP message channels from configuration and instruments them.
+ * <p>
+ * Each channel ("inbound", "outbound", "broker") reads {@code app.websocket.executor.<channel>.*}:
+ * core-size, max-size, queue-capacity, keep-alive-seconds and virtual-threads. With virtual-threads
+ * on a Java 21+ runtime each task gets its own virtual thread and the pool settings do not apply;
+ * on older runtimes the setting is ignored with a warning. Metrics are tagged with the channel name:
+ * <ul>
+ *     <li>{@code websocket.executor.queued}: tasks waiting for a thread</li>
+ *     <li>{@code websocket.executor.active}: tasks currently running</li>
+ *     <li>{@code websocket.executor.wait}: time from submission until a thread picks the task up</li>
+ *     <li>{@code websocket.executor.task}: time from submission until the task completes</li>
+ *     <li>{@code websocket.executor.rejected}: tasks that found the queue full and ran on the caller</li>
+ * </ul>
+ */
+@Component
+public class WebSocketChannelExecutors {
+
+    private static final String PREFIX = "app.websocket.executor.";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Creates the executor for a channel. The returned executor is handed to Spring's
+     * channel registration, which initializes it and shuts it down with the context.
+     *
+     * @param channel The channel name, used for configuration keys, thread names and metric tags.
+     * @param defaultCoreSize The core pool size when none is configured.
+     * @return The configured, instrumented executor.
+     */
+    public TaskExecutor create(String channel, int defaultCoreSize) {
+        int coreSize = property(channel, "core-size", Integer.class, defaultCoreSize);
+        int maxSize = property(channel, "max-size", Integer.class, Math.max(coreSize, defaultCoreSize * 2));
+        int queueCapacity = property(channel, "queue-capacity", Integer.class, 10_000);
+        int keepAliveSeconds = property(channel, "keep-alive-seconds", Integer.class, 60);
+        boolean virtualThreads = property(channel, "virtual-threads", Boolean.class, false);
+
+        AtomicInteger queued = new AtomicInteger();
+        AtomicInteger active = new AtomicInteger();
+        Timer waitTimer = Timer.builder("websocket.executor.wait")
+                .description("Time STOMP channel tasks spend queued")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Timer taskTimer = Timer.builder("websocket.executor.task")
+                .description("Time from submission to completion of STOMP channel tasks")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("websocket.executor.rejected")
+                .description("STOMP channel tasks that found the queue full")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.executor.queued", queued, AtomicInteger::get)
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.executor.active", active, AtomicInteger::get)
+                .tag("channel", channel)
+                .register(meterRegistry);
+
+        TaskDecorator instrumentation = task -> {
+            long submittedAt = System.nanoTime();
+            queued.incrementAndGet();
+            return () -> {
+                long startedAt = System.nanoTime();
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    taskTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+
+        if (virtualThreads) {
+            if (Runtime.version().feature() >= 21) {
+                // Blocking work (JDBC, socket writes) parks the virtual thread instead of holding a pool thread
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-" + channel + "-");
+                executor.setVirtualThreads(true);
+                executor.setTaskDecorator(instrumentation);
+                return executor;
+            }
+            System.err.println("Ignoring " + PREFIX + channel + ".virtual-threads: needs Java 21, running on "
+                    + Runtime.version().feature());
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(keepAliveSeconds);
+        executor.setTaskDecorator(instrumentation);
+        // A full queue pushes back on the caller (e.g. the socket reading thread) instead of dropping frames
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            callerRuns.rejectedExecution(task, pool);
+        });
+        return executor;
+    }
+
+    private <T> T property(String channel, String name, Class<T> type, T defaultValue) {
+        return environment.getProperty(PREFIX + channel + "." + name, type, defaultValue);
+    }
+}
@@ -0,0 +1,108 @@
+-- Baseline: the schema Hibernate's ddl-auto=update created for the original entities, before any of
+-- the tables and columns added since. Existing databases are baselined at this version
+-- (spring.flyway.baseline-on-migrate), skip it, and pick up everything later from V2.
+-- Kept to plain DDL so the same script also runs on H2 in MySQL mode for the tests.
+
+CREATE TABLE permissions (
+    id   BIGINT       NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_permissions_name UNIQUE (name)
+);
+
+CREATE TABLE roles (
+    id   BIGINT       NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+);
+
+CREATE TABLE role_permissions (
+    role_id       BIGINT NOT NULL,
+    permission_id BIGINT NOT NULL,
+    PRIMARY KEY (role_id, permission_id),
+    CONSTRAINT fk_role_permissions_role FOREIGN KEY (role_id) REFERENCES roles (id),
+    CONSTRAINT fk_role_permissions_permission FOREIGN KEY (permission_id) REFERENCES permissions (id)
+);
+
+CREATE TABLE group_roles (
+    id   BIGINT       NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_group_roles_name UNIQUE (name)
+);
+
+CREATE TABLE users (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    username    VARCHAR(50)  NOT NULL,
+    email       VARCHAR(100) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    avatar      VARCHAR(255),
+    status      VARCHAR(255),
+    provider    VARCHAR(255),
+    provider_id VARCHAR(255),
+    created_at  DATETIME(6),
+    updated_at  DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE chats (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    is_group BIT          NOT NULL,
+    name     VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE chat_users (
+    chat_id       BIGINT NOT NULL,
+    user_id       BIGINT NOT NULL,
+    group_role_id BIGINT,
+    PRIMARY KEY (chat_id, user_id),
+    CONSTRAINT fk_chat_users_chat FOREIGN KEY (chat_id) REFERENCES chats (id),
+    CONSTRAINT fk_chat_users_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_chat_users_group_role FOREIGN KEY (group_role_id) REFERENCES group_roles (id)
+);
+
+CREATE TABLE messages (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    content   VARCHAR(255),
+    timestamp DATETIME(6),
+    is_read   BIT          NOT NULL,
+    chat_id   BIGINT,
+    sender_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_messages_chat FOREIGN KEY (chat_id) REFERENCES chats (id),
+    CONSTRAINT fk_messages_sender FOREIGN KEY (sender_id) REFERENCES users (id)
+);
+
+CREATE TABLE attachments (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    file_name  VARCHAR(255),
+    file_type  VARCHAR(255),
+    file_url   VARCHAR(255),
+    message_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_attachments_message_id UNIQUE (message_id),
+    CONSTRAINT fk_attachments_message FOREIGN KEY (message_id) REFERENCES messages (id)
+);
+
+CREATE TABLE refresh_tokens (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT,
+    token       VARCHAR(255) NOT NULL,
+    expiry_date DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_user_id UNIQUE (user_id),
+    CONSTRAINT uk_refresh_tokens_token UNIQUE (token),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
@@ -0,0 +1,76 @@
+-- Tables, columns and indexes the application gained while ddl-auto=update still managed the schema.
+-- Databases baselined at V1 get them here; fresh databases get them right after V1.
+
+-- Keyset pagination of chat history
+CREATE INDEX idx_messages_chat_id_id ON messages (chat_id, id);
+
+-- Revoked access tokens, for the database revocation store; rows go once the token has expired anyway
+CREATE TABLE revoked_tokens (
+    token_id   VARCHAR(64) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (token_id)
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+-- Cross-node STOMP bus of the "database" broker mode
+CREATE TABLE broker_events (
+    id             BIGINT        NOT NULL AUTO_INCREMENT,
+    origin         VARCHAR(64)   NOT NULL,
+    destination    VARCHAR(255)  NOT NULL,
+    content_type   VARCHAR(100),
+    native_headers VARCHAR(2000),
+    payload        MEDIUMBLOB    NOT NULL,
+    created_at     DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_broker_events_created_at ON broker_events (created_at);
+
+-- Resumable chunked uploads
+CREATE TABLE upload_sessions (
+    id             VARCHAR(36)  NOT NULL,
+    message_id     BIGINT       NOT NULL,
+    user_id        BIGINT       NOT NULL,
+    file_name      VARCHAR(255) NOT NULL,
+    file_type      VARCHAR(255),
+    total_size     BIGINT       NOT NULL,
+    received_bytes BIGINT       NOT NULL,
+    temp_path      VARCHAR(255) NOT NULL,
+    created_at     DATETIME(6),
+    updated_at     DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_upload_sessions_updated_at ON upload_sessions (updated_at);
+
+-- Content-addressed attachment store; attachments stored before it keep a NULL blob_hash
+CREATE TABLE attachment_blobs (
+    hash        VARCHAR(64) NOT NULL,
+    size        BIGINT      NOT NULL,
+    ref_count   INT         NOT NULL,
+    created_at  DATETIME(6),
+    orphaned_at DATETIME(6),
+    PRIMARY KEY (hash)
+);
+
+CREATE INDEX idx_attachment_blobs_orphaned_at ON attachment_blobs (orphaned_at);
+
+ALTER TABLE attachments ADD COLUMN blob_hash VARCHAR(64);
+ALTER TABLE attachments ADD CONSTRAINT fk_attachments_blob FOREIGN KEY (blob_hash) REFERENCES attachment_blobs (hash);
+
+-- Per-member read watermarks
+CREATE TABLE chat_read_state (
+    chat_id              BIGINT      NOT NULL,
+    user_id              BIGINT      NOT NULL,
+    last_read_message_id BIGINT      NOT NULL,
+    updated_at           DATETIME(6) NOT NULL,
+    PRIMARY KEY (chat_id, user_id)
+);
+
+-- Last seen, written in batches by the presence service
+ALTER TABLE users ADD COLUMN last_seen DATETIME(6);
+
+-- messages.id and attachments.id keep their AUTO_INCREMENT from V1: the application now assigns Snowflake
+-- IDs explicitly, which AUTO_INCREMENT columns accept, and dropping it would mean rebuilding tables that
+-- foreign keys point at.
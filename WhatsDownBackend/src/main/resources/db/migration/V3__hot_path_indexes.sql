@@ -0,0 +1,11 @@
+-- Indexes for the hot read paths. messages(chat_id, id) and refresh_tokens(token) already exist, as
+-- idx_messages_chat_id_id (V2) and the unique key on refresh_tokens.token (V1).
+
+-- Paged chat history ordered by send time (MessageRepository.findByChatOrderByTimestampAsc)
+CREATE INDEX idx_messages_chat_id_timestamp ON messages (chat_id, timestamp);
+
+-- A user's chats: chat list, summaries, search scope. The primary key leads with chat_id and cannot serve these.
+CREATE INDEX idx_chat_users_user_id_chat_id ON chat_users (user_id, chat_id);
+
+-- Purge of expired refresh tokens
+CREATE INDEX idx_refresh_tokens_expiry_date ON refresh_tokens (expiry_date);
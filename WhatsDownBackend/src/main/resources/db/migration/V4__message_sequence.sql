@@ -0,0 +1,9 @@
+-- Per-chat message sequence. chats.last_seq is the counter, advanced in the transaction that inserts the message;
+-- the row lock it takes keeps the sequence in commit order within a chat.
+ALTER TABLE chats ADD COLUMN last_seq BIGINT NOT NULL DEFAULT 0;
+
+-- Nullable until V5 numbers the existing messages
+ALTER TABLE messages ADD COLUMN seq BIGINT;
+
+-- Delta sync reads the range above a client's last sequence number
+CREATE UNIQUE INDEX uk_messages_chat_id_seq ON messages (chat_id, seq);
@@ -0,0 +1,2 @@
+-- The user directory polls for users changed on other nodes (UserDirectoryServiceImpl.pollChanges)
+CREATE INDEX idx_users_updated_at ON users (updated_at);
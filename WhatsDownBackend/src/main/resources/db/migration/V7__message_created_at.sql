@@ -0,0 +1,8 @@
+-- Insert time, set by the database. Unlike the snowflake ID, which write-behind issues before the message waits
+-- in its queue, it trails the commit by no more than the inserting transaction, so the search index polls by it.
+ALTER TABLE messages ADD COLUMN created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+-- Existing messages were inserted around their send time
+UPDATE messages SET created_at = timestamp WHERE timestamp IS NOT NULL;
+
+CREATE INDEX idx_messages_created_at_id ON messages (created_at, id);
@@ -0,0 +1,177 @@
+package org.example.whatsdownbackend.benchmark;
+
+import lombok.Data;
+import org.example.whatsdownbackend.entity.Attachment;
+import org.example.whatsdownbackend.entity.Message;
+import org.example.whatsdownbackend.repository.AttachmentRepository;
+import org.example.whatsdownbackend.util.SnowflakeIdGenerator;
+import org.example.whatsdownbackend.util.SnowflakeIdentifierGenerator;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares persisting a burst of attachments through {@link AttachmentRepository#saveAll}, with
+ * Snowflake IDs and the application's {@code hibernate.jdbc.batch_size=50} and ordered inserts,
+ * against the same entity mapped with IDENTITY keys as it was before. With IDENTITY, Hibernate
+ * has to run each insert on its own to read the generated key back, so the batch settings never
+ * apply. Runs against in-memory H2 in MySQL mode, embedded and through H2's TCP server on the
+ * loopback interface; the TCP run adds a round-trip per statement the way a local MySQL would.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.whatsdownbackend.benchmark.AttachmentInsertBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttachmentInsertBenchmark {
+
+    // Attachments per operation, e.g. one message with a few files or one bulk import chunk
+    @Param({"50", "500"})
+    private int attachments;
+
+    @Param({"embedded", "tcp"})
+    private String transport;
+
+    private Server server;
+    private ConfigurableApplicationContext context;
+    private AttachmentRepository attachmentRepository;
+    private IdentityAttachmentRepository identityAttachmentRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:attachment-insert;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        if (transport.equals("tcp")) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + server.getPort()
+                    + "/mem:attachment-insert;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        }
+        SnowflakeIdentifierGenerator.setIdGenerator(new SnowflakeIdGenerator(1));
+
+        context = new SpringApplicationBuilder(PersistenceOnly.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        // Skips application.properties and its MySQL datasource
+                        "--spring.config.name=attachment-insert-benchmark",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.mapping-resources=benchmark/identity-attachment-orm.xml",
+                        "--spring.flyway.enabled=false",
+                        // Same as application.properties
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "--spring.jpa.properties.hibernate.order_inserts=true",
+                        "--spring.jpa.properties.hibernate.order_updates=true");
+        attachmentRepository = context.getBean(AttachmentRepository.class);
+        identityAttachmentRepository = context.getBean(IdentityAttachmentRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        // Keeps the tables, and so the index depth, the same size from one iteration to the next
+        jdbcTemplate.execute("TRUNCATE TABLE attachments");
+        jdbcTemplate.execute("TRUNCATE TABLE attachments_identity");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public int identitySaveAll() {
+        List<IdentityAttachment> batch = new ArrayList<>(attachments);
+        for (int i = 0; i < attachments; i++) {
+            IdentityAttachment attachment = new IdentityAttachment();
+            attachment.setFileName("benchmark-" + i + ".png");
+            attachment.setFileType("image/png");
+            attachment.setFileUrl("/attachments/benchmark-" + i + ".png");
+            batch.add(attachment);
+        }
+        return transactionTemplate.execute(status -> identityAttachmentRepository.saveAll(batch).size());
+    }
+
+    @Benchmark
+    public int snowflakeSaveAll() {
+        List<Attachment> batch = new ArrayList<>(attachments);
+        for (int i = 0; i < attachments; i++) {
+            Attachment attachment = new Attachment();
+            attachment.setFileName("benchmark-" + i + ".png");
+            attachment.setFileType("image/png");
+            attachment.setFileUrl("/attachments/benchmark-" + i + ".png");
+            batch.add(attachment);
+        }
+        return transactionTemplate.execute(status -> attachmentRepository.saveAll(batch).size());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AttachmentInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Just the JPA side of the application: its entities and repositories on an H2 datasource,
+     * plus the IDENTITY-keyed copy of {@link Attachment} below. Not a {@code @Configuration}, so
+     * the application's component scan does not pick it up from the test classpath.
+     */
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Attachment.class)
+    @EnableJpaRepositories(basePackageClasses = {AttachmentRepository.class, AttachmentInsertBenchmark.class},
+            considerNestedRepositories = true,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = {AttachmentRepository.class, IdentityAttachmentRepository.class}))
+    static class PersistenceOnly {
+    }
+
+    /**
+     * {@link Attachment} as it was mapped before, with the key generated by the database. Mapped in
+     * identity-attachment-orm.xml rather than with {@code @Entity}, so only this benchmark's
+     * persistence unit sees it.
+     */
+    @Data
+    public static class IdentityAttachment {
+
+        private Long id;
+
+        private String fileName;
+
+        private String fileType;
+
+        private String fileUrl;
+
+        private Message message;
+    }
+
+    interface IdentityAttachmentRepository extends JpaRepository<IdentityAttachment, Long> {
+    }
+}
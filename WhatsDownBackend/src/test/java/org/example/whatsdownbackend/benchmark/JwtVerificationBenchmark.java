@@ -0,0 +1,75 @@
+package org.example.whatsdownbackend.benchmark;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.security.InMemoryTokenRevocationStore;
+import org.example.whatsdownbackend.security.JwtUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of authenticating one bearer token:
+ * the old double parse with a fresh parser per call, a single parse with a shared parser,
+ * and {@link JwtUtils#verifyAndExtract(String)} with a warm verified-token cache.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.whatsdownbackend.benchmark.JwtVerificationBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET =
+            "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private Key key;
+    private JwtParser sharedParser;
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        sharedParser = Jwts.parserBuilder().setSigningKey(key).build();
+        jwtUtils = new JwtUtils(SECRET, TimeUnit.HOURS.toMillis(1), 10_000,
+                new InMemoryTokenRevocationStore(1000, 60));
+
+        User user = new User();
+        user.setEmail("benchmark@example.com");
+        token = jwtUtils.generateJwtTokenFromUser(user);
+    }
+
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        // What validateJwtToken followed by getUserEmailFromJwtToken used to do
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String sharedParserSingleParse() {
+        return sharedParser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String verifyAndExtractCached() {
+        return jwtUtils.verifyAndExtract(token).orElseThrow().getSubject();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.whatsdownbackend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.whatsdownbackend.dto.ChatMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compares encoding a {@link ChatMessage} broadcast as JSON and as CBOR, and the JSON-to-CBOR
+ * transcode that CBOR sessions pay once per broadcast. Bytes on the wire, raw and with
+ * permessage-deflate style compression, are printed once per trial.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.whatsdownbackend.benchmark.PayloadCodecBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+    @Param({"16", "256", "2048"})
+    private int contentLength;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private ChatMessage message;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Configured like the application's mappers: ISO dates rather than timestamp arrays
+        jsonMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        cborMapper = new ObjectMapper(new CBORFactory())
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        message = new ChatMessage(1234567890123456789L, 42L, 1337L, "benchmark-user",
+                "x".repeat(contentLength), LocalDateTime.of(2024, 1, 1, 12, 0),
+                "CHAT", "c0ffee00-0000-4000-8000-000000000000");
+        json = jsonMapper.writeValueAsBytes(message);
+        byte[] cbor = cborMapper.writeValueAsBytes(message);
+
+        System.out.printf("%ncontent=%d chars: json=%d bytes (deflated %d), cbor=%d bytes (deflated %d)%n",
+                contentLength, json.length, deflatedSize(json), cbor.length, deflatedSize(cbor));
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() throws IOException {
+        return cborMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public byte[] transcodeJsonToCbor() throws IOException {
+        // What PayloadCodecInterceptor does once per broadcast for CBOR subscribers
+        return cborMapper.writeValueAsBytes(jsonMapper.readTree(json));
+    }
+
+    private static int deflatedSize(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(payload);
+        deflater.finish();
+        byte[] buffer = new byte[payload.length + 64];
+        int size = 0;
+        while (!deflater.finished()) {
+            size += deflater.deflate(buffer);
+        }
+        deflater.end();
+        return size;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PayloadCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,350 @@
+package org.example.whatsdownbackend.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.whatsdownbackend.config.JpaConfig;
+import org.example.whatsdownbackend.entity.Chat;
+import org.example.whatsdownbackend.entity.Message;
+import org.example.whatsdownbackend.entity.User;
+import org.example.whatsdownbackend.service.impl.UserDirectoryServiceImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs {@code EXPLAIN} on every statement the repository queries send to the database and fails when
+ * one of them scans a whole table. The repositories run for real against the migrated schema on H2 in
+ * MySQL mode, with the production dialect, and the statements are captured at the JDBC level together
+ * with their bound parameters, so the plans are those of the SQL Hibernate actually emits. The user
+ * directory's poll for users changed on other nodes runs on every node every few seconds, so it is
+ * checked as well.
+ *
+ * <p>Left out on purpose: the substring match of {@code ChatRepository.findByIsGroupTrueAndNameContainingIgnoreCase},
+ * which no B-tree index can serve, the attachment blob garbage collector's sweeps, which walk the whole
+ * table by design, and the MySQL-only read watermark upsert.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaConfig.class, UserDirectoryServiceImpl.class, QueryPlanTest.CaptureConfig.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 0, 10);
+
+    // Statements executed through the data source since the last clear, with their parameter setters
+    private static final List<CapturedStatement> CAPTURED = new ArrayList<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ChatReadStateRepository chatReadStateRepository;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private ChatUserRepository chatUserRepository;
+
+    @Autowired
+    private GroupRoleRepository groupRoleRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private PermissionRepository permissionRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDirectoryServiceImpl userDirectoryService;
+
+    @BeforeAll
+    void load() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (id, username, email, password, updated_at) " +
+                    "SELECT x, 'user' || x, 'user' || x || '@example.com', 'secret', " +
+                    "DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') FROM " + range(5000));
+            statement.execute("INSERT INTO roles (id, name) SELECT x, 'ROLE_' || x FROM " + range(50));
+            statement.execute("INSERT INTO permissions (id, name) SELECT x, 'PERMISSION_' || x FROM " + range(50));
+            statement.execute("INSERT INTO group_roles (id, name) SELECT x, 'GROUP_' || x FROM " + range(50));
+            statement.execute("INSERT INTO chats (id, is_group, name) " +
+                    "SELECT x, MOD(x, 10) = 0, 'chat ' || x FROM " + range(5000));
+            // Two members per chat
+            statement.execute("INSERT INTO chat_users (chat_id, user_id) " +
+                    "SELECT x, MOD(x, 5000) + 1 FROM " + range(5000));
+            statement.execute("INSERT INTO chat_users (chat_id, user_id) " +
+                    "SELECT x, MOD(x + 2500, 5000) + 1 FROM " + range(5000));
+            statement.execute("INSERT INTO chat_read_state (chat_id, user_id, last_read_message_id, updated_at) " +
+                    "SELECT chat_id, user_id, 0, TIMESTAMP '2024-01-01 00:00:00' FROM chat_users");
+            statement.execute("INSERT INTO messages (id, seq, content, timestamp, is_read, chat_id, sender_id) " +
+                    "SELECT x, (x - 1) / 5000 + 1, 'message ' || x, " +
+                    "DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00'), FALSE, " +
+                    "MOD(x, 5000) + 1, MOD(x, 5000) + 1 FROM " + range(50000));
+            statement.execute("INSERT INTO attachment_blobs (hash, size, ref_count, created_at, orphaned_at) " +
+                    "SELECT 'blob-' || x, 1024, MOD(x, 50), TIMESTAMP '2024-01-01 00:00:00', " +
+                    "CASEWHEN(MOD(x, 50) = 0, DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00'), NULL) " +
+                    "FROM " + range(5000));
+            statement.execute("INSERT INTO attachments (id, file_name, file_type, file_url, blob_hash, message_id) " +
+                    "SELECT x, 'file' || x, 'image/png', '/files/' || x, 'blob-' || x, x * 10 FROM " + range(5000));
+            statement.execute("INSERT INTO refresh_tokens (user_id, token, expiry_date) " +
+                    "SELECT x, 'token-' || x, DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') FROM " + range(5000));
+            statement.execute("INSERT INTO revoked_tokens (token_id, expires_at) " +
+                    "SELECT 'jti-' || x, DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') FROM " + range(5000));
+            statement.execute("INSERT INTO upload_sessions (id, message_id, user_id, file_name, total_size, " +
+                    "received_bytes, temp_path, created_at, updated_at) " +
+                    "SELECT 'upload-' || x, x, MOD(x, 5000) + 1, 'file' || x, 1024, 0, '/tmp/' || x, " +
+                    "TIMESTAMP '2024-01-01 00:00:00', DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') " +
+                    "FROM " + range(5000));
+            statement.execute("ANALYZE");
+        }
+        // The initial load reads every user by design; the poll after it must not
+        userDirectoryService.load();
+    }
+
+    @TestFactory
+    List<DynamicTest> repositoryQueriesUseIndexes() throws SQLException {
+        User user1 = entityManager.getReference(User.class, 1L);
+        User user2 = entityManager.getReference(User.class, 2L);
+        Chat chat = entityManager.getReference(Chat.class, 1L);
+        Message message = entityManager.getReference(Message.class, 10L);
+
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+        calls.put("AttachmentBlobRepository.incrementRefCount", () -> attachmentBlobRepository.incrementRefCount("blob-1"));
+        calls.put("AttachmentBlobRepository.findOrphanHashes", () -> attachmentBlobRepository.findOrphanHashes(T0));
+        calls.put("AttachmentBlobRepository.findByHashForUpdate", () -> attachmentBlobRepository.findByHashForUpdate("blob-2"));
+        calls.put("AttachmentRepository.findByMessage", () -> attachmentRepository.findByMessage(message));
+        calls.put("AttachmentRepository.findFileViewById", () -> attachmentRepository.findFileViewById(1L));
+        calls.put("ChatReadStateRepository.findReadStates", () -> chatReadStateRepository.findReadStates(1L));
+        calls.put("ChatRepository.findAllByUser", () -> chatRepository.findAllByUser(user1));
+        calls.put("ChatRepository.findOneOnOneChat", () -> chatRepository.findOneOnOneChat(user1, user2));
+        calls.put("ChatRepository.findChatSummaries", () -> chatRepository.findChatSummaries(1L, 100));
+        calls.put("ChatRepository.advanceLastSeq", () -> chatRepository.advanceLastSeq(1L, 1));
+        calls.put("ChatRepository.findLastSeq", () -> chatRepository.findLastSeq(1L));
+        calls.put("ChatUserRepository.existsMembership", () -> chatUserRepository.existsMembership(1L, 2L));
+        calls.put("ChatUserRepository.findMemberIdsByChatIds", () -> chatUserRepository.findMemberIdsByChatIds(Set.of(1L, 2L, 3L)));
+        calls.put("ChatUserRepository.findChatIdsByUserId", () -> chatUserRepository.findChatIdsByUserId(1L));
+        calls.put("GroupRoleRepository.findByName", () -> groupRoleRepository.findByName("GROUP_1"));
+        calls.put("MessageRepository.findByChatOrderByTimestampAsc",
+                () -> messageRepository.findByChatOrderByTimestampAsc(chat, PageRequest.of(2, 20)));
+        calls.put("MessageRepository.findLatestByChatId", () -> messageRepository.findLatestByChatId(1L, PageRequest.of(0, 50)));
+        calls.put("MessageRepository.findByChatIdBefore",
+                () -> messageRepository.findByChatIdBefore(1L, 10000L, PageRequest.of(0, 50)));
+        calls.put("MessageRepository.findByChatIdAfter",
+                () -> messageRepository.findByChatIdAfter(1L, 10000L, PageRequest.of(0, 50)));
+        calls.put("MessageRepository.findByChatIdAfterSeq",
+                () -> messageRepository.findByChatIdAfterSeq(1L, 5L, PageRequest.of(0, 100)));
+        calls.put("MessageRepository.findLatestIdUpTo", () -> messageRepository.findLatestIdUpTo(1L, 10000L));
+        calls.put("MessageRepository.deleteByIdIn", () -> messageRepository.deleteByIdIn(List.of(1L, 2L, 3L)));
+        calls.put("PermissionRepository.findByName", () -> permissionRepository.findByName("PERMISSION_1"));
+        calls.put("RefreshTokenRepository.findByToken", () -> refreshTokenRepository.findByToken("token-1"));
+        calls.put("RefreshTokenRepository.findByUser", () -> refreshTokenRepository.findByUser(user1));
+        calls.put("RefreshTokenRepository.deleteByUser", () -> refreshTokenRepository.deleteByUser(user2));
+        calls.put("RefreshTokenRepository.deleteExpired",
+                () -> refreshTokenRepository.deleteExpired(Instant.parse("2024-01-01T00:10:00Z")));
+        calls.put("RevokedTokenRepository.deleteExpired",
+                () -> revokedTokenRepository.deleteExpired(Instant.parse("2024-01-01T00:10:00Z")));
+        calls.put("RoleRepository.findByName", () -> roleRepository.findByName("ROLE_1"));
+        calls.put("UploadSessionRepository.findByUpdatedAtBefore", () -> uploadSessionRepository.findByUpdatedAtBefore(T0));
+        calls.put("UserRepository.findByEmail", () -> userRepository.findByEmail("user1@example.com"));
+        calls.put("UserRepository.findByUsername", () -> userRepository.findByUsername("user1"));
+        calls.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail("user1@example.com"));
+        calls.put("UserRepository.existsByUsername", () -> userRepository.existsByUsername("user1"));
+        calls.put("UserRepository.findLastSeenByIdIn", () -> userRepository.findLastSeenByIdIn(Set.of(1L, 2L, 3L)));
+        calls.put("UserDirectoryServiceImpl.pollChanges", () -> userDirectoryService.pollChanges());
+
+        // Runs every call inside the test's transaction, which rolls the deletes back afterwards
+        List<DynamicTest> tests = new ArrayList<>();
+        for (Map.Entry<String, Runnable> call : calls.entrySet()) {
+            List<CapturedStatement> statements = capture(call.getValue());
+            for (int i = 0; i < statements.size(); i++) {
+                CapturedStatement statement = statements.get(i);
+                String plan = explain(statement);
+                String name = call.getKey() + (statements.size() > 1 ? " #" + (i + 1) : "");
+                tests.add(DynamicTest.dynamicTest(name, () -> assertFalse(
+                        plan.toLowerCase(Locale.ROOT).contains(".tablescan"),
+                        name + " scans a whole table:\n" + statement.sql + "\n" + plan)));
+            }
+            if (statements.isEmpty()) {
+                tests.add(DynamicTest.dynamicTest(call.getKey(), () -> {
+                    throw new AssertionError(call.getKey() + " ran no SQL; nothing was explained");
+                }));
+            }
+        }
+        return tests;
+    }
+
+    private List<CapturedStatement> capture(Runnable call) {
+        // Flush pending writes first and start cold, so the call's own statements are the ones captured
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+        synchronized (CAPTURED) {
+            CAPTURED.clear();
+        }
+        call.run();
+        entityManager.flush();
+        synchronized (CAPTURED) {
+            return new ArrayList<>(CAPTURED);
+        }
+    }
+
+    private String explain(CapturedStatement captured) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + captured.sql)) {
+            for (ParameterSetter setter : captured.parameters) {
+                setter.apply(statement);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    // SYSTEM_RANGE names its column X, which DATABASE_TO_LOWER would otherwise look up as x
+    private static String range(int count) {
+        return "(SELECT \"X\" AS x FROM SYSTEM_RANGE(1, " + count + ")) r";
+    }
+
+    private record ParameterSetter(Method method, Object[] args) {
+
+        void apply(PreparedStatement statement) throws SQLException {
+            try {
+                method.invoke(statement, args);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw (SQLException) e.getCause();
+            }
+        }
+    }
+
+    private record CapturedStatement(String sql, List<ParameterSetter> parameters) {
+    }
+
+    /**
+     * Wraps the data source so every prepared statement that is executed is recorded with its parameters.
+     */
+    @TestConfiguration
+    static class CaptureConfig {
+
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? wrap(dataSource) : bean;
+                }
+            };
+        }
+
+        private static DataSource wrap(DataSource target) {
+            return proxy(DataSource.class, target, (method, args, result) ->
+                    result instanceof Connection connection ? wrap(connection) : result);
+        }
+
+        private static Connection wrap(Connection target) {
+            return proxy(Connection.class, target, (method, args, result) ->
+                    method.getName().equals("prepareStatement") && !((String) args[0]).startsWith("EXPLAIN ")
+                            ? wrap((PreparedStatement) result, (String) args[0])
+                            : result);
+        }
+
+        private static PreparedStatement wrap(PreparedStatement target, String sql) {
+            List<ParameterSetter> parameters = new ArrayList<>();
+            return proxy(PreparedStatement.class, target, (method, args, result) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    parameters.add(new ParameterSetter(method, args.clone()));
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                    synchronized (CAPTURED) {
+                        CAPTURED.add(new CapturedStatement(sql, List.copyOf(parameters)));
+                    }
+                }
+                return result;
+            });
+        }
+
+        private interface ResultHandler {
+            Object handle(Method method, Object[] args, Object result);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, ResultHandler handler) {
+            return (T) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        Object result;
+                        try {
+                            result = method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        return handler.handle(method, args, result);
+                    });
+        }
+    }
+}
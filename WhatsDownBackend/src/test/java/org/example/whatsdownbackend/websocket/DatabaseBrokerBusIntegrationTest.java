@@ -0,0 +1,187 @@
+package org.example.whatsdownbackend.websocket;
+
+import org.example.whatsdownbackend.WhatsDownBackendApplication;
+import org.example.whatsdownbackend.dto.ChatMessage;
+import org.example.whatsdownbackend.repository.UserRepository;
+import org.example.whatsdownbackend.security.JwtUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Starts two application nodes in one JVM, sharing an H2 database in the "database" broker mode,
+ * and checks that what is published on one node reaches STOMP subscribers connected to the other.
+ */
+class DatabaseBrokerBusIntegrationTest {
+
+    private static final String DATABASE_URL =
+            "jdbc:h2:mem:broker-bus;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @TempDir
+    static Path tempDir;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static final List<StompSession> sessions = new ArrayList<>();
+    private static ThreadPoolTaskScheduler clientScheduler;
+
+    @BeforeAll
+    static void startNodes() {
+        clientScheduler = new ThreadPoolTaskScheduler();
+        clientScheduler.initialize();
+        nodeA = startNode("node-a", 1);
+        nodeB = startNode("node-b", 2);
+
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password) VALUES " +
+                "(1001, 'alice', 'alice@example.com', 'secret'), (1002, 'bob', 'bob@example.com', 'secret')");
+        jdbcTemplate.update("INSERT INTO chats (id, is_group, name) VALUES (1001, FALSE, NULL)");
+        jdbcTemplate.update("INSERT INTO chat_users (chat_id, user_id) VALUES (1001, 1001), (1001, 1002)");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        sessions.forEach(StompSession::disconnect);
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (clientScheduler != null) {
+            clientScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void topicMessagePublishedOnOneNodeReachesSubscribersOnTheOther() throws Exception {
+        StompSession bob = connect(nodeB, "bob@example.com");
+        BlockingQueue<ChatMessage> received =
+                subscribe(nodeB, "bob@example.com", bob, "/topic/chat/1001", ChatMessage.class);
+
+        ChatMessage message = new ChatMessage();
+        message.setMessageId(1L);
+        message.setChatId(1001L);
+        message.setSeq(1L);
+        message.setSenderUsername("alice");
+        message.setContent("hello from node A");
+        nodeA.getBean(SimpMessagingTemplate.class).convertAndSend("/topic/chat/1001", message);
+
+        ChatMessage delivered = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(delivered, "The message did not reach the subscriber on node B");
+        assertEquals("hello from node A", delivered.getContent());
+        assertEquals(1L, delivered.getSeq());
+    }
+
+    @Test
+    void userDestinationReachesSessionsOnOtherNodes() throws Exception {
+        StompSession bob = connect(nodeB, "bob@example.com");
+        BlockingQueue<String> received = subscribe(nodeB, "bob@example.com", bob, "/user/queue/notifications", String.class);
+
+        nodeA.getBean(SimpMessagingTemplate.class)
+                .convertAndSendToUser("bob@example.com", "/queue/notifications", "ping");
+
+        assertEquals("ping", received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                "The user message did not reach bob's session on node B");
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, int idNode) {
+        Path nodeDir = tempDir.resolve(nodeId);
+        return new SpringApplicationBuilder(WhatsDownBackendApplication.class)
+                .run(
+                        "--spring.datasource.url=" + DATABASE_URL,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=none",
+                        "--spring.jpa.show-sql=false",
+                        "--server.port=0",
+                        "--app.ids.node-id=" + idNode,
+                        "--app.websocket.broker.mode=database",
+                        "--app.websocket.broker.node-id=" + nodeId,
+                        "--attachment.storage.path=" + nodeDir.resolve("attachments"),
+                        "--app.search.index-path=" + nodeDir.resolve("search-index"));
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext node, String email) throws Exception {
+        String token = node.getBean(JwtUtils.class)
+                .generateJwtTokenFromUser(node.getBean(UserRepository.class).findByEmail(email).orElseThrow());
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new CompositeMessageConverter(
+                List.of(new StringMessageConverter(), new MappingJackson2MessageConverter())));
+        client.setTaskScheduler(clientScheduler);
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("token", token);
+        StompSession session = client.connectAsync("ws://localhost:" + port + "/ws-native",
+                        new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {})
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * Subscribes and waits until the node has registered the subscription, so nothing published
+     * afterwards can be missed. The simple broker does not answer SUBSCRIBE frames with receipts.
+     */
+    private static <T> BlockingQueue<T> subscribe(ConfigurableApplicationContext node, String email,
+                                                  StompSession session, String destination, Class<T> type)
+            throws Exception {
+        BlockingQueue<T> received = new LinkedBlockingQueue<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return type;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add(type.cast(payload));
+            }
+        });
+
+        SimpUserRegistry userRegistry = node.getBean(SimpUserRegistry.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (userRegistry.findSubscriptions(candidate ->
+                candidate.getDestination().equals(destination)
+                        && candidate.getSession().getUser().getName().equals(email)).isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException("Subscription to " + destination + " was never registered");
+            }
+            Thread.sleep(20);
+        }
+        return received;
+    }
+}